@@ -0,0 +1,23 @@
+package com.boc_dev.lge_core.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// runs everything (or whatever matches the first argument) with the gc profiler on, so allocation rate per op is
+// reported next to ops/sec. java -jar target/benchmarks.jar [regex]
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+
+		Options options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : "com\\.boc_dev\\.lge_core\\.benchmarks\\..*")
+				.addProfiler(GCProfiler.class)
+				.jvmArgsAppend("-Xmx8g")
+				.build();
+
+		new Runner(options).run();
+	}
+}
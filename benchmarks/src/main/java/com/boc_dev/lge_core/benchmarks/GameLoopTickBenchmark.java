@@ -0,0 +1,63 @@
+package com.boc_dev.lge_core.benchmarks;
+
+import com.boc_dev.lge_core.CountingRenderSink;
+import com.boc_dev.lge_core.GameLoop;
+import com.boc_dev.lge_core.SceneLayer;
+import com.boc_dev.maths.objects.vector.Vec3f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+// one full headless tick, registry update through to the frame being handed to the sink
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameLoopTickBenchmark {
+
+	@Param({"CHAIN", "FAN_OUT", "FOREST"})
+	public SyntheticScenes.Shape shape;
+
+	@Param({"10000", "100000", "1000000"})
+	public int components;
+
+	// percentage of root transforms moved every tick
+	@Param({"1", "100"})
+	public int movingPercent;
+
+	private SyntheticScenes.SyntheticScene scene;
+	private GameLoop gameLoop;
+	private CountingRenderSink renderSink;
+	private int moving;
+	private float offset = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		scene = SyntheticScenes.build(shape, components);
+		ArrayList<SceneLayer> sceneLayers = new ArrayList<>();
+		sceneLayers.add(scene.sceneLayer);
+		renderSink = new CountingRenderSink();
+		gameLoop = new GameLoop(sceneLayers, renderSink);
+		moving = Math.max(1, scene.roots.size() * movingPercent / 100);
+		// first tick sends all the creates, keep it out of the measurement
+		gameLoop.runTick();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		gameLoop.stop();
+	}
+
+	@Benchmark
+	public long tick() {
+		offset += 0.01f;
+		for (int i = 0; i < moving; i++) {
+			SyntheticScenes.move(scene.roots.get(i), new Vec3f(offset, 0, 0));
+		}
+		gameLoop.runTick();
+		return renderSink.getEvents();
+	}
+}
@@ -0,0 +1,37 @@
+package com.boc_dev.lge_core.benchmarks;
+
+import com.boc_dev.graphics_library.objects.materials.Material;
+import com.boc_dev.lge_core.MaterialBuilder;
+import com.boc_dev.lge_core.SceneLayer;
+import com.boc_dev.lge_model.generated.components.MaterialObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaterialBuilderBenchmark {
+
+	@Param({"false", "true"})
+	public boolean textured;
+
+	private MaterialBuilder materialBuilder;
+	private MaterialObject materialObject;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		SceneLayer sceneLayer = SyntheticScenes.newLayer("benchmark");
+		materialObject = SyntheticScenes.material(sceneLayer.getRegistry(), textured);
+		sceneLayer.getRegistryUpdater().run(0);
+		materialBuilder = new MaterialBuilder();
+	}
+
+	@Benchmark
+	public Material build() {
+		return materialBuilder.build(materialObject);
+	}
+}
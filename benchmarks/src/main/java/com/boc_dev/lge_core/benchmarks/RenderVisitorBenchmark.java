@@ -0,0 +1,50 @@
+package com.boc_dev.lge_core.benchmarks;
+
+import com.boc_dev.lge_core.RenderVisitorImpl;
+import com.boc_dev.lge_model.generated.components.GeometryObject;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+import com.boc_dev.maths.objects.vector.Vec3f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderVisitorBenchmark {
+
+	@Param({"10000", "100000", "1000000"})
+	public int components;
+
+	private SyntheticScenes.SyntheticScene scene;
+	private RenderVisitorImpl renderVisitor;
+	private Matrix4f[][] transforms;
+	private int frame = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		scene = SyntheticScenes.build(SyntheticScenes.Shape.FOREST, components);
+		renderVisitor = new RenderVisitorImpl(SyntheticScenes.DISCARDING_WRITER, "benchmark");
+
+		// two sets of transforms to flip between, so nothing gets skipped for matching the last one sent
+		transforms = new Matrix4f[2][scene.geometries.size()];
+		for (int i = 0; i < scene.geometries.size(); i++) {
+			transforms[0][i] = Matrix4f.Translation(new Vec3f(i, 0, 0));
+			transforms[1][i] = Matrix4f.Translation(new Vec3f(i, 1, 0));
+		}
+	}
+
+	@Benchmark
+	public void sendInstanceUpdateAndSend() {
+		Matrix4f[] frameTransforms = transforms[frame];
+		frame ^= 1;
+		for (int i = 0; i < frameTransforms.length; i++) {
+			GeometryObject geometryObject = scene.geometries.get(i);
+			renderVisitor.sendInstanceUpdate(geometryObject, frameTransforms[i]);
+		}
+		renderVisitor.send();
+	}
+}
@@ -0,0 +1,165 @@
+package com.boc_dev.lge_core.benchmarks;
+
+import com.boc_dev.event_bus.interfaces.Event;
+import com.boc_dev.graphics_library.objects.lighting.Fog;
+import com.boc_dev.lge_core.FrameEventWriter;
+import com.boc_dev.lge_core.InstanceBatch;
+import com.boc_dev.lge_core.SceneLayer;
+import com.boc_dev.lge_model.gcs.Component;
+import com.boc_dev.lge_model.gcs.Registry;
+import com.boc_dev.lge_model.generated.components.*;
+import com.boc_dev.maths.objects.QuaternionF;
+import com.boc_dev.maths.objects.vector.Vec3f;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+// builds the scenes the benchmarks run over. this is the only place the benchmarks create components, so if the
+// generated builders in lge_model change this is the only file that needs touching
+final class SyntheticScenes {
+
+	static final String MODEL_FILE = "DEFAULT_CUBE";
+
+	enum Shape {
+		// one long parent child chain of transforms, a geometry hanging off each one
+		CHAIN,
+		// one root transform with every other transform directly under it
+		FAN_OUT,
+		// lots of small independent trees, a root with 8 children each
+		FOREST
+	}
+
+	// what a benchmark needs to get at after the scene has been built
+	static final class SyntheticScene {
+		final SceneLayer sceneLayer;
+		final ArrayList<TransformObject> roots = new ArrayList<>();
+		final ArrayList<TransformObject> transforms = new ArrayList<>();
+		final ArrayList<GeometryObject> geometries = new ArrayList<>();
+		Component deepest;
+
+		private SyntheticScene(SceneLayer sceneLayer) {
+			this.sceneLayer = sceneLayer;
+		}
+	}
+
+	// throws every render event away, for benchmarking the conversion on its own
+	static final FrameEventWriter DISCARDING_WRITER = new FrameEventWriter() {
+		@Override
+		public void write(Event<?> event) {
+		}
+
+		@Override
+		public void writeInterpolated(InstanceBatch instanceBatch, String layerName) {
+		}
+
+		@Override
+		public void writeStreamed(InstanceBatch instanceBatch, String layerName) {
+		}
+	};
+
+	private SyntheticScenes() {
+	}
+
+	static SceneLayer newLayer(String layerName) {
+		return new SceneLayer(layerName, Vec3f.ONE, new Fog(false, new Vec3f(0, 0, 0), 0));
+	}
+
+	// roughly componentCount components in total, half transforms and half geometry
+	static SyntheticScene build(Shape shape, int componentCount) {
+
+		SyntheticScene scene = new SyntheticScene(newLayer("benchmark"));
+		Registry registry = scene.sceneLayer.getRegistry();
+		UUID material = material(registry, false).getUuid();
+
+		int transformCount = Math.max(1, componentCount / 2);
+
+		switch (shape) {
+			case CHAIN: {
+				TransformObject parent = null;
+				for (int i = 0; i < transformCount; i++) {
+					TransformObject transformObject = transform(registry, new Vec3f(1, 0, 0));
+					if (parent == null) {
+						scene.roots.add(transformObject);
+					} else {
+						setParent(transformObject, parent);
+					}
+					scene.transforms.add(transformObject);
+					scene.geometries.add(geometry(registry, transformObject, material));
+					parent = transformObject;
+				}
+				scene.deepest = scene.geometries.get(scene.geometries.size() - 1);
+				break;
+			}
+			case FAN_OUT: {
+				TransformObject root = transform(registry, Vec3f.ZERO);
+				scene.roots.add(root);
+				scene.transforms.add(root);
+				for (int i = 1; i < transformCount; i++) {
+					TransformObject transformObject = transform(registry, new Vec3f(i, 0, 0));
+					setParent(transformObject, root);
+					scene.transforms.add(transformObject);
+					scene.geometries.add(geometry(registry, transformObject, material));
+				}
+				scene.deepest = scene.geometries.isEmpty() ? root : scene.geometries.get(0);
+				break;
+			}
+			case FOREST:
+			default: {
+				for (int i = 0; i < transformCount; i += 9) {
+					TransformObject root = transform(registry, new Vec3f(i, 0, 0));
+					scene.roots.add(root);
+					scene.transforms.add(root);
+					for (int j = 1; j < 9 && i + j < transformCount; j++) {
+						TransformObject transformObject = transform(registry, new Vec3f(0, j, 0));
+						setParent(transformObject, root);
+						scene.transforms.add(transformObject);
+						scene.geometries.add(geometry(registry, transformObject, material));
+					}
+				}
+				scene.deepest = scene.geometries.isEmpty() ? scene.roots.get(0) : scene.geometries.get(0);
+				break;
+			}
+		}
+
+		// apply the creates and parent links
+		scene.sceneLayer.getRegistryUpdater().run(0);
+
+		return scene;
+	}
+
+	static TransformObject transform(Registry registry, Vec3f position) {
+		return new TransformBuilder()
+				.setPosition(position)
+				.setRotation(QuaternionF.Identity)
+				.setScale(Vec3f.ONE)
+				.build(registry);
+	}
+
+	static GeometryObject geometry(Registry registry, Component parent, UUID material) {
+		GeometryObject geometryObject = new GeometryBuilder(MODEL_FILE)
+				.setMaterial(material)
+				.build(registry);
+		setParent(geometryObject, parent);
+		return geometryObject;
+	}
+
+	// with textured set the material gets both a texture and a normal map, so it builds a NormalMaterial
+	static MaterialObject material(Registry registry, boolean textured) {
+		MaterialObject materialObject = new com.boc_dev.lge_model.generated.components.MaterialBuilder()
+				.build(registry);
+		if (textured) {
+			setParent(new TextureBuilder().setPath("/textures/brick.png").build(registry), materialObject);
+			setParent(new NormalMapBuilder().setPath("/normalMaps/brickNormal.png").build(registry), materialObject);
+		}
+		return materialObject;
+	}
+
+	static void setParent(Component child, Component parent) {
+		child.getUpdater().setParent(parent).sendUpdate();
+	}
+
+	// queues a transform update the same way a system would. only takes effect on the next registry update
+	static void move(TransformObject transformObject, Vec3f position) {
+		transformObject.getUpdater().setPosition(position).sendUpdate();
+	}
+}
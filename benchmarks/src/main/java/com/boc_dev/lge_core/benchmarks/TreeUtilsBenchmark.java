@@ -0,0 +1,85 @@
+package com.boc_dev.lge_core.benchmarks;
+
+import com.boc_dev.lge_core.RenderingConversion;
+import com.boc_dev.lge_core.TreeUtils;
+import com.boc_dev.lge_model.generated.components.TransformObject;
+import com.boc_dev.maths.objects.vector.Vec3f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeUtilsBenchmark {
+
+	@Param({"CHAIN", "FAN_OUT", "FOREST"})
+	public SyntheticScenes.Shape shape;
+
+	@Param({"10000", "100000", "1000000"})
+	public int components;
+
+	// 1 would always go parallel, MAX_VALUE never does
+	@Param({"1024", "2147483647"})
+	public int parallelThreshold;
+
+	private SyntheticScenes.SyntheticScene scene;
+	private TreeUtils treeUtils;
+	private RenderingConversion renderingConversion;
+	private ForkJoinPool forkJoinPool;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		scene = SyntheticScenes.build(shape, components);
+		treeUtils = new TreeUtils();
+		renderingConversion = new RenderingConversion(SyntheticScenes.DISCARDING_WRITER, "benchmark");
+		forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+		// leave the whole scene dirty for findRootDirtyTransform. resolving walks every root regardless
+		for (TransformObject root : scene.roots) {
+			SyntheticScenes.move(root, new Vec3f(0, 1, 0));
+		}
+		scene.sceneLayer.getRegistryUpdater().run(1);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		forkJoinPool.shutdownNow();
+	}
+
+	// moves every root before each resolve, flipping between two positions so the globals always differ from the
+	// last ones sent and nothing gets skipped by the sent transform filter. the updates are applied here so the
+	// registry update isn't part of the measurement. a single resolve is well over a millisecond at these sizes,
+	// so the per invocation setup doesn't skew it
+	@State(Scope.Thread)
+	public static class MovedRoots {
+
+		private int frame = 0;
+
+		@Setup(Level.Invocation)
+		public void move(TreeUtilsBenchmark benchmark) {
+			frame++;
+			Vec3f position = new Vec3f(0, frame & 1, 0);
+			for (TransformObject root : benchmark.scene.roots) {
+				SyntheticScenes.move(root, position);
+			}
+			benchmark.scene.sceneLayer.getRegistryUpdater().run(frame + 1);
+		}
+	}
+
+	@Benchmark
+	public void resolveTransformsAndSend(MovedRoots movedRoots) {
+		treeUtils.resolveTransformsAndSend(scene.roots, renderingConversion, forkJoinPool, parallelThreshold);
+		// instance updates are sent on, then thrown away by the writer
+		renderingConversion.send();
+	}
+
+	@Benchmark
+	public TransformObject findRootDirtyTransform() {
+		return treeUtils.findRootDirtyTransform(scene.deepest);
+	}
+}
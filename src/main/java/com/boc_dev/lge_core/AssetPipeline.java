@@ -0,0 +1,54 @@
+package com.boc_dev.lge_core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// bounded pool for asset work that would otherwise block the update thread, ie texture size estimates which open
+// the file. if the queue is full the job is run on the submitting thread instead, so a huge level load slows the
+// tick down rather than queueing forever. heightmap and chunk meshes don't go through here, all the core does for
+// them is snapshot what the renderer builds the mesh from, and that has to happen on the update thread anyway
+public class AssetPipeline {
+
+	private final ThreadPoolExecutor executor;
+
+	public AssetPipeline(int workers, int queueCapacity) {
+
+		if (workers < 1) {
+			throw new IllegalArgumentException("Asset pipeline needs at least 1 worker, got " + workers);
+		}
+
+		AtomicInteger threadCount = new AtomicInteger();
+
+		this.executor = new ThreadPoolExecutor(
+				workers,
+				workers,
+				0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+				runnable -> {
+					Thread thread = new Thread(runnable, "asset-pipeline-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				},
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	Executor getExecutor() {
+		return executor;
+	}
+
+	// submitted but not finished
+	public int getQueuedJobs() {
+		return executor.getQueue().size() + executor.getActiveCount();
+	}
+
+	public long getCompletedJobs() {
+		return executor.getCompletedTaskCount();
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,57 @@
+package com.boc_dev.lge_core;
+
+import java.util.UUID;
+
+// identifies one instanced batch in the renderer, ie a (model, material) pair. keys are interned by BatchKeys so
+// there is only ever one object per pair, which means equality is identity and the hash is worked out once
+public final class BatchKey {
+
+	private final String modelFile;
+	private final UUID material;
+	private final String id;
+	private final int hash;
+	private BatchKey modelKey;
+
+	BatchKey(String modelFile, UUID material) {
+		this.modelFile = modelFile;
+		this.material = material;
+		// the string the renderer knows the batch by. model only keys (material is null) are just the model file
+		this.id = material == null ? modelFile : modelFile + material.toString();
+		this.hash = id.hashCode();
+	}
+
+	public String getModelFile() {
+		return modelFile;
+	}
+
+	public UUID getMaterial() {
+		return material;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	// the model only key for this batch, used by the picking streams which don't care about material
+	BatchKey getModelKey() {
+		return modelKey;
+	}
+
+	void setModelKey(BatchKey modelKey) {
+		this.modelKey = modelKey;
+	}
+
+	boolean matches(String modelFile, UUID material) {
+		return this.modelFile.equals(modelFile) && (this.material == null ? material == null : this.material.equals(material));
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return id;
+	}
+}
@@ -0,0 +1,47 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.lge_model.generated.components.GeometryObject;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.UUID;
+
+// interns batch keys and remembers which one each geometry resolved to, so the per frame instance updates don't
+// need to build and hash a model + material string every time. not thread safe, one per render visitor
+class BatchKeys {
+
+	private final HashMap<String, HashMap<UUID, BatchKey>> keys = new HashMap<>();
+	private final IdentityHashMap<GeometryObject, BatchKey> geometryKeys = new IdentityHashMap<>();
+
+	BatchKey intern(String modelFile, UUID material) {
+
+		HashMap<UUID, BatchKey> materialKeys = keys.get(modelFile);
+		if (materialKeys == null) {
+			materialKeys = new HashMap<>();
+			keys.put(modelFile, materialKeys);
+		}
+
+		BatchKey batchKey = materialKeys.get(material);
+		if (batchKey == null) {
+			batchKey = new BatchKey(modelFile, material);
+			batchKey.setModelKey(material == null ? batchKey : intern(modelFile, null));
+			materialKeys.put(material, batchKey);
+		}
+
+		return batchKey;
+	}
+
+	BatchKey forGeometry(GeometryObject geometryObject) {
+		BatchKey batchKey = geometryKeys.get(geometryObject);
+		// model or material can be swapped on a geometry, so check the cached key still fits
+		if (batchKey == null || !batchKey.matches(geometryObject.getModelFile(), geometryObject.getMaterial())) {
+			batchKey = intern(geometryObject.getModelFile(), geometryObject.getMaterial());
+			geometryKeys.put(geometryObject, batchKey);
+		}
+		return batchKey;
+	}
+
+	void release(GeometryObject geometryObject) {
+		geometryKeys.remove(geometryObject);
+	}
+}
@@ -0,0 +1,127 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.lge_model.gcs.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+// folds every create, destroy and renderable update a component gets in one frame down to a single net change
+// before anything is sent to the renderer. something spawned and destroyed in the same tick drops out completely,
+// and anything created this frame has its instance updates dropped as the create already carries its final
+// transform
+public class ChangeJournal {
+
+	private enum NetChange {
+		CREATE,
+		DELETE,
+		REPLACE,
+		CANCELLED
+	}
+
+	private final IdentityHashMap<Component, NetChange> netChanges = new IdentityHashMap<>();
+	private final ArrayList<Component> order = new ArrayList<>();
+
+	private long recordedChanges = 0;
+	private long cancelledChanges = 0;
+	private long suppressedInstanceUpdates = 0;
+
+	public void recordCreate(Component component) {
+		NetChange current = netChanges.get(component);
+		if (current == null) {
+			record(component, NetChange.CREATE);
+		} else if (current == NetChange.DELETE) {
+			// was already in the scene, taken out and put back in
+			record(component, NetChange.REPLACE);
+		} else if (current == NetChange.CANCELLED) {
+			record(component, NetChange.CREATE);
+		}
+		recordedChanges++;
+	}
+
+	public void recordDelete(Component component) {
+		NetChange current = netChanges.get(component);
+		if (current == null || current == NetChange.REPLACE) {
+			record(component, NetChange.DELETE);
+		} else if (current == NetChange.CREATE) {
+			// never reached the renderer, so there is nothing to delete
+			record(component, NetChange.CANCELLED);
+		}
+		recordedChanges++;
+	}
+
+	public void recordRenderableUpdate(Component component) {
+		NetChange current = netChanges.get(component);
+		// a create or delete this frame already covers it
+		if (current == null) {
+			record(component, NetChange.REPLACE);
+		}
+		recordedChanges++;
+	}
+
+	// true if the component is being created, deleted or replaced this frame, in which case its instance update
+	// is redundant
+	public boolean suppressesInstanceUpdate(Component component) {
+		if (netChanges.containsKey(component)) {
+			suppressedInstanceUpdates++;
+			return true;
+		}
+		return false;
+	}
+
+	// sends the net changes, creates first, then deletes, then replaced renderables
+	public void apply(RenderingConversion renderingConversion) {
+
+		for (Component component : order) {
+			if (netChanges.get(component) == NetChange.CREATE) {
+				renderingConversion.sendComponentCreateUpdate(component);
+			}
+		}
+
+		for (Component component : order) {
+			if (netChanges.get(component) == NetChange.DELETE) {
+				renderingConversion.sendComponentDeleteUpdate(component);
+			}
+		}
+
+		for (Component component : order) {
+			if (netChanges.get(component) == NetChange.REPLACE) {
+				renderingConversion.updateRenderableComponentType(component);
+			}
+		}
+
+		for (Component component : order) {
+			if (netChanges.get(component) == NetChange.CANCELLED) {
+				cancelledChanges++;
+			}
+		}
+	}
+
+	public void clear() {
+		netChanges.clear();
+		order.clear();
+	}
+
+	public int size() {
+		return order.size();
+	}
+
+	// raw create, destroy and renderable updates seen
+	public long getRecordedChanges() {
+		return recordedChanges;
+	}
+
+	// components that were created and destroyed in the same frame and never sent
+	public long getCancelledChanges() {
+		return cancelledChanges;
+	}
+
+	public long getSuppressedInstanceUpdates() {
+		return suppressedInstanceUpdates;
+	}
+
+	private void record(Component component, NetChange netChange) {
+		if (netChanges.put(component, netChange) == null) {
+			order.add(component);
+		}
+	}
+}
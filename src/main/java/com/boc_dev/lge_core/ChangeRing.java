@@ -0,0 +1,103 @@
+package com.boc_dev.lge_core;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// multi producer, single consumer queue made out of linked array chunks. producers claim a slot with one atomic
+// increment and the consumer drains without ever taking a lock. when a chunk fills up a bigger one gets linked
+// on the end, so it grows on demand instead of reserving a massive array up front.
+// drained chunks are left for the gc rather than reused. a producer can still be holding one it read as the tail a
+// while ago, and the only ways to know when none are would put shared state back on every offer
+public class ChangeRing<T> {
+
+	private static final int MAX_CHUNK_SIZE = 1 << 16;
+
+	private final AtomicReference<Chunk<T>> tail;
+
+	// only ever touched by the draining thread
+	private Chunk<T> head;
+
+	public ChangeRing(int initialChunkSize) {
+		if (initialChunkSize < 1) {
+			throw new IllegalArgumentException("Initial chunk size must be at least 1, got " + initialChunkSize);
+		}
+		this.head = new Chunk<>(Math.min(initialChunkSize, MAX_CHUNK_SIZE));
+		this.tail = new AtomicReference<>(head);
+	}
+
+	public void offer(T value) {
+
+		Objects.requireNonNull(value);
+
+		while (true) {
+
+			Chunk<T> chunk = tail.get();
+			int index = chunk.producerIndex.getAndIncrement();
+
+			if (index < chunk.slots.length()) {
+				chunk.slots.lazySet(index, value);
+				return;
+			}
+
+			// chunk is full. link a new one on the end (or use the one another producer beat us to) and go again
+			Chunk<T> next = chunk.next.get();
+			if (next == null) {
+				Chunk<T> created = new Chunk<>(Math.min(chunk.slots.length() * 2, MAX_CHUNK_SIZE));
+				next = chunk.next.compareAndSet(null, created) ? created : chunk.next.get();
+			}
+			tail.compareAndSet(chunk, next);
+		}
+	}
+
+	// moves everything that has been fully published into the collection, in the order the slots were claimed.
+	// must only be called from one thread at a time
+	public int drainTo(Collection<? super T> collection) {
+
+		int drained = 0;
+		Chunk<T> chunk = head;
+
+		while (true) {
+
+			int limit = Math.min(chunk.producerIndex.get(), chunk.slots.length());
+
+			while (chunk.consumerIndex < limit) {
+				T value = chunk.slots.get(chunk.consumerIndex);
+				// slot has been claimed but the producer hasn't written it yet. stop here so order is kept, it will
+				// be picked up next drain
+				if (value == null) {
+					return drained;
+				}
+				chunk.slots.lazySet(chunk.consumerIndex, null);
+				chunk.consumerIndex++;
+				collection.add(value);
+				drained++;
+			}
+
+			if (chunk.consumerIndex < chunk.slots.length()) {
+				return drained;
+			}
+
+			Chunk<T> next = chunk.next.get();
+			if (next == null) {
+				return drained;
+			}
+
+			head = chunk = next;
+		}
+	}
+
+	private static final class Chunk<T> {
+
+		private final AtomicReferenceArray<T> slots;
+		private final AtomicInteger producerIndex = new AtomicInteger();
+		private final AtomicReference<Chunk<T>> next = new AtomicReference<>();
+		private int consumerIndex = 0;
+
+		private Chunk(int size) {
+			this.slots = new AtomicReferenceArray<>(size);
+		}
+	}
+}
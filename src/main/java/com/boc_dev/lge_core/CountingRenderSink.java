@@ -0,0 +1,70 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.busses.GameBus;
+import com.boc_dev.event_bus.interfaces.Event;
+
+import java.util.ArrayList;
+
+// counts frames and events without keeping any of them, for measuring pipeline throughput. counters can be read
+// from any thread
+public class CountingRenderSink implements RenderSink {
+
+	private volatile long frames = 0;
+	private volatile long events = 0;
+	private long frameEvents = 0;
+	private volatile long maxFrameEvents = 0;
+
+	@Override
+	public void attach(GameBus renderGameBus, ArrayList<SceneLayer> sceneLayers) {
+	}
+
+	@Override
+	public void init() {
+	}
+
+	@Override
+	public void accept(Event<?> event) {
+		events++;
+		frameEvents++;
+	}
+
+	@Override
+	public void renderFrame() {
+		frames++;
+		if (frameEvents > maxFrameEvents) {
+			maxFrameEvents = frameEvents;
+		}
+		frameEvents = 0;
+	}
+
+	@Override
+	public boolean shouldClose() {
+		return false;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public void setTitle(String title) {
+	}
+
+	@Override
+	public boolean needsRenderThread() {
+		return false;
+	}
+
+	public long getFrames() {
+		return frames;
+	}
+
+	public long getEvents() {
+		return events;
+	}
+
+	// most events seen in a single frame
+	public long getMaxFrameEvents() {
+		return maxFrameEvents;
+	}
+}
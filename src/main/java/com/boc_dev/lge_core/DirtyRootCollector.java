@@ -0,0 +1,173 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.lge_model.gcs.Component;
+import com.boc_dev.lge_model.generated.components.ComponentType;
+import com.boc_dev.lge_model.generated.components.TransformObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// works out the smallest set of transforms that need resolving for a frame. each updated transform walks up
+// towards the scene root, but stops as soon as it reaches a component another walk has already been through this
+// frame, so shared ancestor chains are only ever climbed once. visited components are stamped with the frame
+// generation so nothing needs clearing between frames
+public class DirtyRootCollector {
+
+	private final StampTable visited = new StampTable();
+	private final StampTable emitted = new StampTable();
+	private final ArrayList<Component> path = new ArrayList<>();
+	private final ArrayList<TransformObject> dirtyRoots = new ArrayList<>();
+	private long generation = 0;
+
+	// returned list is reused, so it is only valid until the next call
+	public List<TransformObject> collect(List<TransformObject> updatedTransforms) {
+
+		generation++;
+		dirtyRoots.clear();
+
+		for (TransformObject transformObject : updatedTransforms) {
+			// its own values changed, so its cached local matrix is out of date
+			OwnedMatrix4f.markLocalChanged(transformObject);
+			// another system may have already resolved it
+			if (!transformObject.isDirty()) {
+				continue;
+			}
+			TransformObject root = findRoot(transformObject);
+			// only emit each root once, a frame full of siblings all share the same one
+			if (root != null && emitted.stamp(root, generation, null)) {
+				dirtyRoots.add(root);
+			}
+		}
+
+		return dirtyRoots;
+	}
+
+	private TransformObject findRoot(Component component) {
+
+		path.clear();
+
+		TransformObject root = null;
+		Component current = component;
+
+		// climb until we hit the root or something already resolved this frame
+		while (current != null) {
+			int slot = visited.find(current, generation);
+			if (slot >= 0) {
+				root = (TransformObject) visited.valueAt(slot);
+				break;
+			}
+			path.add(current);
+			current = current.getParent();
+		}
+
+		// now walk back down the path. the highest dirty transform wins, and every component on the way gets
+		// stamped with it so later walks can stop early
+		for (int i = path.size() - 1; i >= 0; i--) {
+			Component pathComponent = path.get(i);
+			if (root == null && pathComponent.getComponentType().equals(ComponentType.TRANSFORM) && pathComponent.isDirty()) {
+				root = (TransformObject) pathComponent;
+			}
+			visited.stamp(pathComponent, generation, root);
+		}
+
+		path.clear();
+
+		return root;
+	}
+
+	// open addressing identity table where an entry only counts if its stamp matches the current generation.
+	// stale entries are dropped whenever the table is rebuilt
+	private static final class StampTable {
+
+		private Object[] keys = new Object[64];
+		private Object[] values = new Object[64];
+		private long[] stamps = new long[64];
+		private int occupied = 0;
+
+		private static int hash(Object key) {
+			int h = System.identityHashCode(key);
+			return h ^ (h >>> 16);
+		}
+
+		private int find(Object key, long generation) {
+			int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			while (keys[slot] != null) {
+				if (keys[slot] == key) {
+					return stamps[slot] == generation ? slot : -1;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+
+		private Object valueAt(int slot) {
+			return values[slot];
+		}
+
+		// returns true if the key was not already stamped with this generation
+		private boolean stamp(Object key, long generation, Object value) {
+
+			if ((occupied + 1) * 2 > keys.length) {
+				rebuild(generation);
+			}
+
+			int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			while (keys[slot] != null) {
+				if (keys[slot] == key) {
+					boolean fresh = stamps[slot] != generation;
+					stamps[slot] = generation;
+					values[slot] = value;
+					return fresh;
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			keys[slot] = key;
+			values[slot] = value;
+			stamps[slot] = generation;
+			occupied++;
+			return true;
+		}
+
+		private void rebuild(long generation) {
+
+			Object[] oldKeys = keys;
+			Object[] oldValues = values;
+			long[] oldStamps = stamps;
+
+			int live = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null && oldStamps[i] == generation) {
+					live++;
+				}
+			}
+
+			// only grow if the live entries alone would fill a quarter of the table
+			int capacity = oldKeys.length;
+			while ((live + 1) * 4 > capacity) {
+				capacity *= 2;
+			}
+
+			keys = new Object[capacity];
+			values = new Object[capacity];
+			stamps = new long[capacity];
+			occupied = 0;
+
+			int mask = capacity - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null && oldStamps[i] == generation) {
+					int slot = hash(oldKeys[i]) & mask;
+					while (keys[slot] != null) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+					stamps[slot] = oldStamps[i];
+					occupied++;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.boc_dev.lge_core;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class FixedTimestepScheduler implements FrameScheduler {
+
+	// how long before a tick is due to stop parking and start spinning. parkNanos can overshoot by the os timer
+	// slack, so the last little bit is done with onSpinWait to keep ticks on time
+	private static final long SPIN_THRESHOLD_NANOS = 200_000;
+
+	private final long tickNanos;
+	private final int maxCatchUpSteps;
+
+	private long accumulatorNanos = 0;
+	private long lastTime = -1;
+	// step start for the next tick published, and how many of the ticks handed out haven't been yet
+	private long stepStartNanos = 0;
+	private int unpublishedSteps = 0;
+
+	public FixedTimestepScheduler(double tickRate, int maxCatchUpSteps) {
+		if (tickRate <= 0) {
+			throw new IllegalArgumentException("Tick rate must be positive, got " + tickRate);
+		}
+		if (maxCatchUpSteps < 1) {
+			throw new IllegalArgumentException("Max catch up steps must be at least 1, got " + maxCatchUpSteps);
+		}
+		this.tickNanos = Math.round(1_000_000_000.0 / tickRate);
+		this.maxCatchUpSteps = maxCatchUpSteps;
+	}
+
+	public FixedTimestepScheduler(double tickRate) {
+		this(tickRate, 5);
+	}
+
+	@Override
+	public int awaitTicks() {
+
+		if (lastTime < 0) {
+			lastTime = System.nanoTime();
+		}
+
+		while (!Thread.currentThread().isInterrupted()) {
+
+			long now = System.nanoTime();
+			accumulatorNanos += now - lastTime;
+			lastTime = now;
+
+			if (accumulatorNanos >= tickNanos) {
+
+				long steps = accumulatorNanos / tickNanos;
+
+				// if we have fallen too far behind, run the max number of steps and drop the rest of the backlog
+				// rather than spiralling further and further behind
+				if (steps > maxCatchUpSteps) {
+					accumulatorNanos = 0;
+					return handOut(maxCatchUpSteps, now);
+				}
+
+				accumulatorNanos -= steps * tickNanos;
+				return handOut((int) steps, now);
+			}
+
+			long remaining = tickNanos - accumulatorNanos;
+
+			if (remaining > SPIN_THRESHOLD_NANOS) {
+				LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+
+		return 0;
+	}
+
+	// what is left in the accumulator is how far past the last of these ticks we already are. each tick before it
+	// in a catch up burst is a whole step further back
+	private int handOut(int steps, long now) {
+		stepStartNanos = now - accumulatorNanos - (steps - 1) * tickNanos;
+		unpublishedSteps = steps;
+		return steps;
+	}
+
+	@Override
+	public long nextStepStartNanos() {
+		// ticks being run by hand rather than through awaitTicks, so there is no accumulator to go on
+		if (unpublishedSteps == 0) {
+			return System.nanoTime();
+		}
+		long start = stepStartNanos;
+		stepStartNanos += tickNanos;
+		unpublishedSteps--;
+		return start;
+	}
+
+	@Override
+	public double getTickSeconds() {
+		return tickNanos / 1_000_000_000.0;
+	}
+
+	@Override
+	public double getAlpha(long stepStartNanos) {
+		double alpha = (System.nanoTime() - stepStartNanos) / (double) tickNanos;
+		return Math.max(0, Math.min(1, alpha));
+	}
+
+	public int getMaxCatchUpSteps() {
+		return maxCatchUpSteps;
+	}
+}
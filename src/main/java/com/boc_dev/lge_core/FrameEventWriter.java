@@ -0,0 +1,25 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.interfaces.Event;
+
+import java.util.Set;
+import java.util.UUID;
+
+public interface FrameEventWriter {
+
+	// adds a render event to the frame currently being built
+	void write(Event<?> event);
+
+	// adds the previous and current transforms of a batch of moved instances, for the render thread to
+	// interpolate between
+	void writeInterpolated(InstanceBatch instanceBatch, String layerName);
+
+	// adds a batch of moved instances for the frames InstanceStreamListener. the batch is reused once this returns,
+	// so it has to be copied
+	void writeStreamed(InstanceBatch instanceBatch, String layerName);
+
+	// the instances taken out by a remove event that has just been written. the set is not changed afterwards
+	default void writeRemoved(Set<UUID> instanceIds) {
+	}
+
+}
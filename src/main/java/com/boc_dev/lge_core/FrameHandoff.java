@@ -0,0 +1,85 @@
+package com.boc_dev.lge_core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// lock free triple buffer between the update thread and the render thread. the update thread fills the back
+// packet and publishes it in one go, the render thread picks up the newest published packet whenever it likes.
+// neither side ever waits on the other and the render thread can never see half a frame.
+// packets hold changes rather than state, so a published packet the renderer hasn't picked up yet can't just be
+// overwritten. instead the update thread takes it back and appends the next frame onto it
+public class FrameHandoff {
+
+	private static final int INDEX_MASK = 0b011;
+	private static final int FRESH = 0b100;
+
+	private final FramePacket[] packets = new FramePacket[3];
+
+	// middle packet index plus whether it has been published and not picked up yet
+	private final AtomicInteger state;
+
+	// owned by the update thread
+	private int backIndex = 2;
+
+	// owned by the render thread
+	private int frontIndex = 0;
+
+	public FrameHandoff(int layerCount) {
+		for (int i = 0; i < packets.length; i++) {
+			packets[i] = new FramePacket(layerCount);
+		}
+		this.state = new AtomicInteger(1);
+	}
+
+	// the packet the update thread is currently writing
+	public FramePacket back() {
+		return packets[backIndex];
+	}
+
+	// update thread only. makes the back packet visible to the render thread
+	public void publish(long tick, long stepStartNanos) {
+
+		packets[backIndex].setTick(tick, stepStartNanos);
+
+		while (true) {
+
+			int current = state.get();
+			int middleIndex = current & INDEX_MASK;
+
+			if ((current & FRESH) != 0) {
+				// render thread hasn't taken the last one yet. claim it back (clearing fresh stops the render thread
+				// touching it), add this frame onto the end and put it back out
+				if (state.compareAndSet(current, middleIndex)) {
+					packets[middleIndex].appendFrom(packets[backIndex]);
+					packets[backIndex].clear();
+					state.set(middleIndex | FRESH);
+					return;
+				}
+			} else if (state.compareAndSet(current, backIndex | FRESH)) {
+				// the old middle has already been through the renderer, so it becomes the next back packet
+				backIndex = middleIndex;
+				packets[backIndex].clear();
+				return;
+			}
+		}
+	}
+
+	// render thread only. returns the newest complete packet, or null if nothing new has been published since
+	// the last call. the packet is the render threads until the next call
+	public FramePacket acquire() {
+
+		int current = state.get();
+
+		if ((current & FRESH) == 0) {
+			return null;
+		}
+
+		// swap our old front into the middle. if this fails the update thread is busy adding to the middle packet,
+		// so just pick it up next frame
+		if (state.compareAndSet(current, frontIndex)) {
+			frontIndex = current & INDEX_MASK;
+			return packets[frontIndex];
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,55 @@
+package com.boc_dev.lge_core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// the per layer tick phase timings, by layer name in layer order
+public class FrameMetrics {
+
+	private final LinkedHashMap<String, LayerTimings> layerTimings = new LinkedHashMap<>();
+
+	FrameMetrics(List<SceneLayer> sceneLayers) {
+		for (SceneLayer sceneLayer : sceneLayers) {
+			layerTimings.put(sceneLayer.getLayerName(), sceneLayer.getLayerTimings());
+		}
+	}
+
+	public List<String> getLayerNames() {
+		return Collections.unmodifiableList(new ArrayList<>(layerTimings.keySet()));
+	}
+
+	// null if there is no layer with that name
+	public LayerTimings getLayerTimings(String layerName) {
+		return layerTimings.get(layerName);
+	}
+
+	public void reset() {
+		for (LayerTimings timings : layerTimings.values()) {
+			timings.reset();
+		}
+	}
+
+	// one line per layer and phase, times in microseconds
+	public String format() {
+
+		StringBuilder stringBuilder = new StringBuilder();
+
+		for (String layerName : layerTimings.keySet()) {
+			LayerTimings timings = layerTimings.get(layerName);
+			for (TickPhase tickPhase : TickPhase.values()) {
+				LatencyHistogram histogram = timings.getHistogram(tickPhase);
+				stringBuilder.append(String.format("%s %-17s count %8d  p50 %9.1fus  p99 %9.1fus  max %9.1fus%n",
+						layerName,
+						tickPhase,
+						histogram.getCount(),
+						histogram.getPercentileNanos(50) / 1000.0,
+						histogram.getPercentileNanos(99) / 1000.0,
+						histogram.getMaxNanos() / 1000.0));
+			}
+		}
+
+		return stringBuilder.toString();
+	}
+}
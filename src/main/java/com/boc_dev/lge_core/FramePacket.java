@@ -0,0 +1,191 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.interfaces.Event;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.UUID;
+
+// every render event produced by one tick, kept per layer so layers being ticked at the same time can each write
+// to their own list without getting in each others way. shared events (not belonging to any one layer) go out
+// after every layers events
+public class FramePacket {
+
+	private final ArrayList<ArrayList<Event<?>>> layerEvents;
+	private final ArrayList<Event<?>> sharedEvents = new ArrayList<>();
+	// earlier frames that were appended onto this one, already flattened into the order they go out in
+	private final ArrayList<Event<?>> earlierEvents = new ArrayList<>();
+	private final InterpolationTargets interpolationTargets = new InterpolationTargets();
+	// instances removed by this packets events, per layer for the same reason as the events
+	private final ArrayList<ArrayList<Set<UUID>>> layerRemovedInstances;
+	// copies of the batches each layer streamed, kept with the packet and reused. the first streamedCounts of each
+	// layers list are in use
+	private final ArrayList<ArrayList<InstanceBatch>> layerStreamedBatches;
+	private final int[] streamedCounts;
+	private final String[] streamedLayerNames;
+	private long tick = 0;
+	private long stepStartNanos = 0;
+
+	FramePacket(int layerCount) {
+		this.layerEvents = new ArrayList<>(layerCount);
+		this.layerRemovedInstances = new ArrayList<>(layerCount);
+		this.layerStreamedBatches = new ArrayList<>(layerCount);
+		this.streamedCounts = new int[layerCount];
+		this.streamedLayerNames = new String[layerCount];
+		for (int i = 0; i < layerCount; i++) {
+			layerEvents.add(new ArrayList<>());
+			layerRemovedInstances.add(new ArrayList<>());
+			layerStreamedBatches.add(new ArrayList<>());
+		}
+	}
+
+	void add(int layerIndex, Event<?> event) {
+		layerEvents.get(layerIndex).add(event);
+	}
+
+	// copies the batch, the layer reuses it straight after
+	void addStreamed(int layerIndex, InstanceBatch instanceBatch, String layerName) {
+		ArrayList<InstanceBatch> streamedBatches = layerStreamedBatches.get(layerIndex);
+		int used = streamedCounts[layerIndex];
+		if (used == streamedBatches.size()) {
+			streamedBatches.add(new InstanceBatch(instanceBatch.getBatchKey(), Math.max(16, instanceBatch.getCount())));
+		}
+		streamedBatches.get(used).copyFrom(instanceBatch);
+		streamedCounts[layerIndex] = used + 1;
+		streamedLayerNames[layerIndex] = layerName;
+	}
+
+	void addRemoved(int layerIndex, Set<UUID> instanceIds) {
+		layerRemovedInstances.get(layerIndex).add(instanceIds);
+	}
+
+	// only once every layer has joined
+	void addShared(Event<?> event) {
+		sharedEvents.add(event);
+	}
+
+	// layers are ticked side by side, so each stages its own targets and they are merged in here once every layer
+	// has joined
+	void addInterpolated(InterpolationTargets layerTargets) {
+		interpolationTargets.appendFrom(layerTargets);
+	}
+
+	// tacks another packets events on the end, used when the renderer skipped a frame so nothing gets lost.
+	// everything already in here is flattened first, otherwise the other packets layer events would end up in
+	// front of this ones shared events
+	void appendFrom(FramePacket framePacket) {
+		for (ArrayList<Event<?>> events : layerEvents) {
+			earlierEvents.addAll(events);
+			events.clear();
+		}
+		earlierEvents.addAll(sharedEvents);
+		sharedEvents.clear();
+
+		earlierEvents.addAll(framePacket.earlierEvents);
+		for (int i = 0; i < layerEvents.size(); i++) {
+			layerEvents.get(i).addAll(framePacket.layerEvents.get(i));
+		}
+		sharedEvents.addAll(framePacket.sharedEvents);
+
+		// anything the later frame removes would otherwise be moved again by the interpolation and streamed
+		// batches, which are sent after all of the events
+		for (ArrayList<Set<UUID>> removedInstances : framePacket.layerRemovedInstances) {
+			for (Set<UUID> instanceIds : removedInstances) {
+				interpolationTargets.removeAll(instanceIds);
+				removeStreamed(instanceIds);
+			}
+		}
+		interpolationTargets.appendFrom(framePacket.interpolationTargets);
+		for (int i = 0; i < layerStreamedBatches.size(); i++) {
+			ArrayList<InstanceBatch> streamedBatches = framePacket.layerStreamedBatches.get(i);
+			for (int j = 0; j < framePacket.streamedCounts[i]; j++) {
+				addStreamed(i, streamedBatches.get(j), framePacket.streamedLayerNames[i]);
+			}
+		}
+		tick = framePacket.tick;
+		stepStartNanos = framePacket.stepStartNanos;
+	}
+
+	void clear() {
+		for (ArrayList<Event<?>> events : layerEvents) {
+			events.clear();
+		}
+		sharedEvents.clear();
+		earlierEvents.clear();
+		for (ArrayList<Set<UUID>> removedInstances : layerRemovedInstances) {
+			removedInstances.clear();
+		}
+		for (int i = 0; i < layerStreamedBatches.size(); i++) {
+			for (int j = 0; j < streamedCounts[i]; j++) {
+				layerStreamedBatches.get(i).get(j).clear();
+			}
+			streamedCounts[i] = 0;
+		}
+		interpolationTargets.clear();
+	}
+
+	void setTick(long tick, long stepStartNanos) {
+		this.tick = tick;
+		this.stepStartNanos = stepStartNanos;
+	}
+
+	// the last tick that went into this packet
+	public long getTick() {
+		return tick;
+	}
+
+	// when the time after the last tick started, see FrameScheduler.nextStepStartNanos
+	public long getStepStartNanos() {
+		return stepStartNanos;
+	}
+
+	public int getEventCount() {
+		int count = earlierEvents.size() + sharedEvents.size();
+		for (ArrayList<Event<?>> events : layerEvents) {
+			count += events.size();
+		}
+		return count;
+	}
+
+	void copyInterpolationTargetsTo(InterpolationTargets targets) {
+		targets.appendFrom(interpolationTargets);
+	}
+
+	// hands the streamed batches over layer by layer, in the order they were written
+	void sendStreamed(InstanceStreamListener instanceStreamListener) {
+		for (int i = 0; i < layerStreamedBatches.size(); i++) {
+			for (int j = 0; j < streamedCounts[i]; j++) {
+				InstanceBatch instanceBatch = layerStreamedBatches.get(i).get(j);
+				if (instanceBatch.getCount() > 0) {
+					instanceStreamListener.onInstanceBatch(streamedLayerNames[i], instanceBatch);
+				}
+			}
+		}
+	}
+
+	private void removeStreamed(Set<UUID> instanceIds) {
+		for (int i = 0; i < layerStreamedBatches.size(); i++) {
+			for (int j = 0; j < streamedCounts[i]; j++) {
+				InstanceBatch instanceBatch = layerStreamedBatches.get(i).get(j);
+				for (UUID id : instanceIds) {
+					instanceBatch.remove(id);
+				}
+			}
+		}
+	}
+
+	// hands the events over layer by layer, in the order they were written, then the shared ones
+	public void sendTo(RenderSink renderSink) {
+		for (Event<?> event : earlierEvents) {
+			renderSink.accept(event);
+		}
+		for (ArrayList<Event<?>> events : layerEvents) {
+			for (Event<?> event : events) {
+				renderSink.accept(event);
+			}
+		}
+		for (Event<?> event : sharedEvents) {
+			renderSink.accept(event);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.boc_dev.lge_core;
+
+public interface FrameScheduler {
+
+	// blocks the calling thread until at least one tick is due and returns how many fixed steps should be run.
+	// returns 0 if the wait was cut short (ie the thread was interrupted) so the caller can check for shutdown
+	int awaitTicks();
+
+	// when the time after the tick just run started, ie the nanoTime the accumulator was empty at once that tick had
+	// been taken out of it. called on the update thread once per tick as its frame is published, and carried to the
+	// render thread with the frame
+	long nextStepStartNanos();
+
+	// length of one fixed step in seconds
+	double getTickSeconds();
+
+	// how far through the step that started at stepStartNanos we are, 0 to 1. can be called from any thread, the
+	// render thread uses it with the step start of the frame it has to interpolate between the last two ticks
+	double getAlpha(long stepStartNanos);
+
+}
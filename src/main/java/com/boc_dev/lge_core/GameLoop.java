@@ -9,56 +9,97 @@ import com.boc_dev.event_bus.events.ManagementEvent;
 import com.boc_dev.event_bus.interfaces.Event;
 import com.boc_dev.event_bus.interfaces.Subscribable;
 import com.boc_dev.event_bus.subscribables.ErrorSubscribable;
-import com.boc_dev.lge_model.bus.RenderableUpdateEvent;
-import com.boc_dev.lge_model.bus.RenderableUpdateEventType;
 import com.boc_dev.lge_model.gcs.Component;
 import com.boc_dev.lge_model.generated.components.ComponentType;
 import com.boc_dev.lge_model.generated.components.TransformObject;
 import com.boc_dev.lge_model.systems.GcsSystem;
 import com.boc_dev.lge_systems.control.ControllerState;
 import com.boc_dev.lge_systems.control.DirectInputSystem;
-import com.boc_dev.graphics_library.Window;
 import com.boc_dev.graphics_library.WindowInitialisationParameters;
-import com.boc_dev.graphics_library.objects.render_scene.Scene;
 import com.boc_dev.lge_systems.control.ImpulseInputSystem;
 import com.boc_dev.lge_systems.control.PickingSystem;
-import com.boc_dev.maths.objects.matrix.Matrix4f;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class GameLoop implements Subscribable {
 
 	private final Set<Class<?>> supports = new HashSet<>();
 
-	private static final float FPS = 60;
-	private final WindowInitialisationParameters wip;
-	private final RenderingConversion renderingConversion;
+	private static final double DEFAULT_TICK_RATE = 60;
+	private static final int DEFAULT_PARALLEL_TRANSFORM_THRESHOLD = 1024;
+	// building the title string and setting it is a native call, so only do it a couple of times a second
+	private static final long TITLE_INTERVAL_NANOS = 500_000_000;
+	private final RenderSink renderSink;
+	private final FrameScheduler frameScheduler;
 	private final GameBus renderGameBus;
+	private final FrameHandoff frameHandoff;
+	// textures are shared by every layer, so are counted across all of them
+	private final TextureRegistry textureRegistry = new TextureRegistry();
+	private final HeightMapCache heightMapCache = new HeightMapCache();
+	// texture size estimates are done here rather than in the tick
+	private final AssetPipeline assetPipeline = new AssetPipeline(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 256);
 	private final ExecutorService executorService;
+	private final ForkJoinPool layerPool;
+	private final InstanceInterpolator instanceInterpolator = new InstanceInterpolator();
+	private volatile InstanceStreamListener instanceStreamListener = null;
+	private final ArrayList<LayerFrameWriter> layerFrameWriters = new ArrayList<>();
+	private final ArrayList<LayerTickTask> layerTickTasks = new ArrayList<>();
+	private final RecursiveAction tickAllLayers = new RecursiveAction() {
+		@Override
+		protected void compute() {
+			invokeAll(layerTickTasks);
+		}
+	};
 	private final ArrayList<SceneLayer> sceneLayers;
+	// one per layer, fed by the renderers picking pass, or by the picking service when picks are answered on the cpu
+	private final ArrayList<PickingRelay> pickingRelays = new ArrayList<>();
+	private final FrameMetrics frameMetrics;
 	private final ArrayList<ComponentType> renderComponentTypes = new ArrayList<>();
 
-	private final ArrayBlockingQueue<Component> addedRenderableQueue = new ArrayBlockingQueue<>(1_000_000);
-	private final ArrayBlockingQueue<Component> removedRenderableQueue = new ArrayBlockingQueue<>(1_000_000);
-	private final ArrayBlockingQueue<TransformObject> updateTransformQueue = new ArrayBlockingQueue<>(1_000_000);
-	private final ArrayBlockingQueue<Component> updateRenderableQueue = new ArrayBlockingQueue<>(1_000_000);
-	private final ArrayList<Component> addedRenderable = new ArrayList<>();
-	private final ArrayList<Component> removedRenderable = new ArrayList<>();
-	private final ArrayList<TransformObject> updateTransform = new ArrayList<>();
-	private final ArrayList<Component> updateRenderable = new ArrayList<>();
-	private final Window window;
-
 	private volatile boolean shutdown = false;
-
-	private final TreeUtils treeUtils = new TreeUtils();
+	private long step = 0;
+	// thread presenting frames only
+	private long presentedStepStartNanos = 0;
+	private boolean presentedFrame = false;
+	// written before the interval and read after it, so a dump never sees a new interval with the old consumer
+	private volatile Consumer<String> metricsConsumer = null;
+	// builds the event a cpu pick reaches PickingSystem as, null until cpu picking is turned on
+	private volatile Function<UUID, Event<?>> pickEvent = null;
+	private volatile long metricsDumpIntervalNanos = 0;
+	private long lastMetricsDump = System.nanoTime();
+	private volatile int parallelTransformThreshold = DEFAULT_PARALLEL_TRANSFORM_THRESHOLD;
 
 	public GameLoop(ArrayList<SceneLayer> sceneLayers,
 	                WindowInitialisationParameters wip) {
+		this(sceneLayers, wip, new FixedTimestepScheduler(DEFAULT_TICK_RATE));
+	}
+
+	public GameLoop(ArrayList<SceneLayer> sceneLayers,
+	                WindowInitialisationParameters wip,
+	                FrameScheduler frameScheduler) {
+		this(sceneLayers, new WindowRenderSink(wip), frameScheduler);
+	}
+
+	// headless, ie with a NoOpRenderSink, CountingRenderSink or RecordingRenderSink. no window or render thread
+	public GameLoop(ArrayList<SceneLayer> sceneLayers,
+	                RenderSink renderSink) {
+		this(sceneLayers, renderSink, new FixedTimestepScheduler(DEFAULT_TICK_RATE));
+	}
+
+	public GameLoop(ArrayList<SceneLayer> sceneLayers,
+	                RenderSink renderSink,
+	                FrameScheduler frameScheduler) {
+
+		this.frameScheduler = frameScheduler;
+		this.renderSink = renderSink;
 
 		for (ComponentType componentType : ComponentType.values()) {
 			if (componentType.isRender()) {
@@ -67,17 +108,30 @@ public class GameLoop implements Subscribable {
 		}
 
 		this.supports.add(ManagementEvent.class);
-		this.supports.add(RenderableUpdateEvent.class);
 
 		this.renderGameBus = new GameBus();
 		this.renderGameBus.register(this);
 
 		this.executorService = Executors.newCachedThreadPool();
 
-		this.renderingConversion = new RenderingConversion(renderGameBus);
-
 		this.sceneLayers = sceneLayers;
-		this.wip = wip;
+
+		this.frameHandoff = new FrameHandoff(sceneLayers.size());
+		this.frameMetrics = new FrameMetrics(sceneLayers);
+		this.textureRegistry.setEstimateExecutor(assetPipeline.getExecutor());
+
+		// each layer gets its own conversion so they can be updated side by side. render events are written into
+		// the layers slot in the frame packet rather than dispatched straight away
+		for (int i = 0; i < sceneLayers.size(); i++) {
+			SceneLayer sceneLayer = sceneLayers.get(i);
+			LayerFrameWriter layerFrameWriter = new LayerFrameWriter(i);
+			layerFrameWriters.add(layerFrameWriter);
+			sceneLayer.setRenderingConversion(new RenderingConversion(layerFrameWriter, sceneLayer.getLayerName(), textureRegistry, heightMapCache));
+			layerTickTasks.add(new LayerTickTask(sceneLayer));
+		}
+
+		// shared by the layer ticks and by transform resolution when a layer has a lot of it to do
+		this.layerPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
 		ControllerState controllerState = new ControllerState();
 		this.executorService.submit(controllerState);
@@ -86,17 +140,12 @@ public class GameLoop implements Subscribable {
         ErrorSubscribable errorSubscribable = new ErrorSubscribable(System.err::println);
         this.renderGameBus.register(errorSubscribable);
 
-		ArrayList<Scene> scenes = new ArrayList<>();
-		for (SceneLayer sceneLayer : sceneLayers) {
-			scenes.add(sceneLayer.getScene());
-		}
-
-		this.window = new Window(scenes, renderGameBus);
-
-		this.renderGameBus.register(window);
+		// the window (if there is one) subscribes itself to the render bus and every layer bus
+		renderSink.attach(renderGameBus, sceneLayers);
 
 		for (SceneLayer sceneLayer : sceneLayers) {
 			sceneLayer.getGameBus().register(this);
+			sceneLayer.getGameBus().register(sceneLayer.getChanges());
 			sceneLayer.getGameBus().register(controllerState);
 			sceneLayer.getGameBus().register(errorSubscribable);
 			DirectInputSystem directInputSystem = new DirectInputSystem(controllerState, sceneLayer.getGameBus());
@@ -105,8 +154,10 @@ public class GameLoop implements Subscribable {
 			sceneLayer.getGcsSystems().add((GcsSystem) impulseInputSystem);
 			PickingSystem pickingSystem = new PickingSystem();
 			sceneLayer.getGcsSystems().add((GcsSystem) pickingSystem);
-			this.renderGameBus.register(pickingSystem);
-			sceneLayer.getGameBus().register(window);
+			// through a relay, so it can be cut off from the renderer and fed cpu picks if cpu picking is turned on
+			PickingRelay pickingRelay = new PickingRelay(pickingSystem);
+			this.renderGameBus.register(pickingRelay);
+			pickingRelays.add(pickingRelay);
 		}
 
 		executorService.submit(errorSubscribable);
@@ -115,120 +166,225 @@ public class GameLoop implements Subscribable {
 
 	public void render() {
 
-		long lastTime = System.nanoTime();
+		long lastTitleTime = System.nanoTime();
+		int framesSinceTitle = 0;
 
-		double deltaSeconds;
-
-		try {
-			window.init(wip);
-		} catch (IOException | URISyntaxException e) {
-			renderGameBus.dispatch(new ErrorEvent(e, ErrorEventType.CRITICAL));
-			window.close();
-			shutdown = true;
+		if (!initRenderSink()) {
 			return;
 		}
 
-		while (!window.shouldClose()) {
-			window.render();
-			deltaSeconds = (System.nanoTime() - lastTime) / 1000000000.0;
-			window.setTitle("FPS: " + Math.round(1.0 / deltaSeconds));
-			lastTime = System.nanoTime();
+		while (!renderSink.shouldClose()) {
+			presentFrame();
+			framesSinceTitle++;
+			// average over the interval rather than the last frame, so it is readable as well as cheap
+			long now = System.nanoTime();
+			if (now - lastTitleTime >= TITLE_INTERVAL_NANOS) {
+				renderSink.setTitle("FPS: " + Math.round(framesSinceTitle * 1000000000.0 / (now - lastTitleTime)));
+				lastTitleTime = now;
+				framesSinceTitle = 0;
+			}
 		}
 
-		renderGameBus.dispatch(new ManagementEvent(new ManagementEventData(), ManagementEventType.SHUTDOWN));
-
-		window.close();
-		shutdown = true;
+		closeRenderSink();
 
 	}
 
 	public void update() {
 
-		long step = 0;
-		long lastTime = System.nanoTime();
-
-		double deltaSeconds = 0;
+		// headless sinks have no thread of their own, frames are presented here after each batch of ticks
+		boolean presentOnUpdateThread = !renderSink.needsRenderThread();
+		if (presentOnUpdateThread && !initRenderSink()) {
+			return;
+		}
 
 		while (!shutdown) {
 
 			try {
 
-				long now = System.nanoTime();
-
-				deltaSeconds += (now - lastTime) / 1000000000.0;
+				// parks the thread until the next tick is due rather than spinning on nanoTime
+				int steps = frameScheduler.awaitTicks();
 
-				if (deltaSeconds >= 1 / FPS) {
+				// cut short by an interrupt. a shutdown sets the flag before interrupting, so the loop ends on its own.
+				// any other interrupt (something that caught an InterruptedException and set it again) is cleared, or
+				// every wait from here on would return straight away and spin the thread
+				if (steps == 0) {
+					Thread.interrupted();
+				}
 
+				for (int i = 0; i < steps && !shutdown; i++) {
 					step++;
+					tick(step);
+				}
 
-					for (SceneLayer sceneLayer : sceneLayers) {
+				dumpMetricsIfDue();
 
-						sceneLayer.getRegistryUpdater().run(step);
+				if (presentOnUpdateThread && steps > 0) {
+					presentFrame();
+					if (renderSink.shouldClose()) {
+						closeRenderSink();
+					}
+				}
 
-						// build graphics engine model update message
-						// get all change lists that renderer is interested in
-						addedRenderableQueue.drainTo(addedRenderable);
-						removedRenderableQueue.drainTo(removedRenderable);
-						updateTransformQueue.drainTo(updateTransform);
-						updateRenderableQueue.drainTo(updateRenderable);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
 
-						renderingConversion.setLayerName(sceneLayer.getLayerName());
+		}
 
-						// first iterate over all transforms and check if they are dirty
-						// if they are, walk up the tree to find the highest transform that is dirty,
-						// then walk back down the tree, updating the transforms as you go, and sending
-						// updates to graphics engine about renderable component updates
-						for (TransformObject transformObject : updateTransform) {
-							// first check if current transform has flag set to true anymore as another walk may have resolved it
-							if (transformObject.isDirty()) {
-								TransformObject rootDirtyTransform = treeUtils.findRootDirtyTransform(transformObject);
+	}
 
-								Matrix4f startingGlobalMatrix = Matrix4f.Identity;
+	// runs exactly one tick and, for headless sinks, presents it. for benchmarks and tests driving the loop by
+	// hand, so must not be used alongside update()
+	public void runTick() {
+		step++;
+		tick(step);
+		if (!renderSink.needsRenderThread()) {
+			presentFrame();
+		}
+	}
 
-								// if it is not the root node, get the parents global transform as the starting transform
-								if (rootDirtyTransform.getParent() != null) {
-									startingGlobalMatrix = rootDirtyTransform.getParent().getGlobalTransform();
-								}
+	private void dumpMetricsIfDue() {
+		long interval = metricsDumpIntervalNanos;
+		if (interval > 0 && System.nanoTime() - lastMetricsDump >= interval) {
+			// each dump only covers the ticks since the last one. only ticks record, so nothing is writing to the
+			// histograms while they're reset here
+			String metrics = frameMetrics.format();
+			frameMetrics.reset();
+			lastMetricsDump = System.nanoTime();
+			metricsConsumer.accept(metrics);
+		}
+	}
+
+	// ends the loop from outside, same as closing the window
+	public void stop() {
+		renderGameBus.dispatch(new ManagementEvent(new ManagementEventData(), ManagementEventType.SHUTDOWN));
+	}
 
-								// then resolve all transforms
-								treeUtils.resolveTransformsAndSend(rootDirtyTransform, startingGlobalMatrix, renderingConversion);
-							}
-						}
+	private boolean initRenderSink() {
+		try {
+			renderSink.init();
+			return true;
+		} catch (IOException | URISyntaxException e) {
+			renderGameBus.dispatch(new ErrorEvent(e, ErrorEventType.CRITICAL));
+			renderSink.close();
+			shutdown = true;
+			return false;
+		}
+	}
 
-						for (Component component : addedRenderable) {
-							renderingConversion.sendComponentCreateUpdate(component);
-						}
+	// apply the newest complete frame from the update thread, if there is one, then draw. never waits
+	private void presentFrame() {
+		FramePacket framePacket = frameHandoff.acquire();
+		if (framePacket != null) {
+			presentedStepStartNanos = framePacket.getStepStartNanos();
+			presentedFrame = true;
+			instanceInterpolator.beginFrame(renderSink, framePacket);
+			framePacket.sendTo(renderSink);
+			InstanceStreamListener streamListener = instanceStreamListener;
+			if (streamListener != null) {
+				framePacket.sendStreamed(streamListener);
+			}
+		}
+		// moves interpolated instances on to wherever they should be between the last two ticks, going by how far
+		// the scheduler was into the step after the presented frames tick
+		double alpha = presentedFrame ? frameScheduler.getAlpha(presentedStepStartNanos) : 1;
+		instanceInterpolator.render(renderSink, alpha);
+		renderSink.renderFrame();
+	}
 
-						for (Component component : removedRenderable) {
-							renderingConversion.sendComponentDeleteUpdate(component);
-						}
+	private void closeRenderSink() {
 
-						// now iterate over the updated renderables and send type update changes to graphics
-						// engine
-						for (Component component : updateRenderable) {
-							renderingConversion.updateRenderableComponentType(component);
-						}
+		renderGameBus.dispatch(new ManagementEvent(new ManagementEventData(), ManagementEventType.SHUTDOWN));
 
-						renderingConversion.send();
+		renderSink.close();
+		shutdown = true;
+	}
 
-						addedRenderable.clear();
-						removedRenderable.clear();
-						updateTransform.clear();
-						updateRenderable.clear();
+	private void tick(long step) {
 
-					}
+		// single layer, no point paying for the hand off to the pool
+		if (layerTickTasks.size() == 1) {
+			updateLayer(layerTickTasks.get(0).sceneLayer, step);
+		} else {
+			// layers are independent of each other, so run them all at once and wait for the slowest one
+			for (LayerTickTask layerTickTask : layerTickTasks) {
+				layerTickTask.reinitialize();
+				layerTickTask.step = step;
+			}
+			tickAllLayers.reinitialize();
+			layerPool.invoke(tickAllLayers);
+		}
 
-					deltaSeconds = 0;
-				}
+		// every layer has written its part of the frame, hand the whole thing over to the render thread at once
+		for (LayerFrameWriter layerFrameWriter : layerFrameWriters) {
+			layerFrameWriter.flushInterpolated();
+		}
+		// textures no layer is using any more, and meshes pushed out of the cache, go out after all of the layers
+		// own events
+		textureRegistry.flushReleases(frameHandoff.back()::addShared);
+		heightMapCache.flushEvictions(frameHandoff.back()::addShared);
+		frameHandoff.publish(step, frameScheduler.nextStepStartNanos());
 
+	}
 
-				lastTime = now;
+	private void updateLayer(SceneLayer sceneLayer, long step) {
 
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+		RenderingConversion renderingConversion = sceneLayer.getRenderingConversion();
+		TreeUtils treeUtils = sceneLayer.getTreeUtils();
+		ArrayList<TransformObject> updateTransform = sceneLayer.getUpdateTransform();
+		LayerTimings layerTimings = sceneLayer.getLayerTimings();
 
-		}
+		long tickStart = System.nanoTime();
+
+		sceneLayer.getRegistryUpdater().run(step);
+
+		long phaseEnd = System.nanoTime();
+		layerTimings.record(TickPhase.REGISTRY_UPDATE, phaseEnd - tickStart);
+		long phaseStart = phaseEnd;
+
+		// build graphics engine model update message
+		// get all change lists that renderer is interested in
+		// only this layers changes, so nothing gets resolved against the wrong layer
+		// creates, deletes and renderable updates get folded down to one net change per component
+		sceneLayer.getChanges().drainTo(renderingConversion.getChangeJournal(), updateTransform);
+
+		phaseEnd = System.nanoTime();
+		layerTimings.record(TickPhase.CHANGE_DRAIN, phaseEnd - phaseStart);
+		phaseStart = phaseEnd;
+
+		// first collect the highest dirty transform above every updated transform, climbing each ancestor chain
+		// at most once, then walk back down from each of those roots, updating the transforms as you go, and
+		// sending updates to graphics engine about renderable component updates. big frames get spread over the pool
+		List<TransformObject> dirtyRoots = sceneLayer.getDirtyRootCollector().collect(updateTransform);
+
+		phaseEnd = System.nanoTime();
+		layerTimings.record(TickPhase.DIRTY_ROOTS, phaseEnd - phaseStart);
+		phaseStart = phaseEnd;
+
+		treeUtils.resolveTransformsAndSend(
+				dirtyRoots,
+				renderingConversion,
+				layerPool,
+				parallelTransformThreshold);
+
+		phaseEnd = System.nanoTime();
+		layerTimings.record(TickPhase.TRANSFORM_RESOLVE, phaseEnd - phaseStart);
+		phaseStart = phaseEnd;
+
+		// net creates, deletes and renderable type changes go out with the rest of the frame
+		renderingConversion.applyChanges();
+
+		phaseEnd = System.nanoTime();
+		layerTimings.record(TickPhase.CONVERSION, phaseEnd - phaseStart);
+		phaseStart = phaseEnd;
+
+		renderingConversion.sendUpdates();
+
+		updateTransform.clear();
+
+		phaseEnd = System.nanoTime();
+		layerTimings.record(TickPhase.SEND, phaseEnd - phaseStart);
+		layerTimings.record(TickPhase.TOTAL, phaseEnd - tickStart);
 
 	}
 
@@ -239,14 +395,8 @@ public class GameLoop implements Subscribable {
 			System.out.println("Shutting down");
 			shutdown = true;
 			executorService.shutdownNow();
-		} else if (event.getType().equals(RenderableUpdateEventType.CREATE)) {
-			addedRenderableQueue.offer((Component) event.getData());
-		} else if (event.getType().equals(RenderableUpdateEventType.DESTROY)) {
-			removedRenderableQueue.offer((Component) event.getData());
-		} else if (event.getType().equals(RenderableUpdateEventType.UPDATE_TRANSFORM)) {
-			updateTransformQueue.offer((TransformObject) event.getData());
-		} else if (event.getType().equals(RenderableUpdateEventType.UPDATE_RENDERABLE)) {
-			updateRenderableQueue.offer((Component) event.getData());
+			layerPool.shutdownNow();
+			assetPipeline.shutdown();
 		}
 	}
 
@@ -255,10 +405,240 @@ public class GameLoop implements Subscribable {
 		return supports.contains(aClass);
 	}
 
+	// below this many roots (plus their direct children) transforms are resolved on the layers own thread
+	public void setParallelTransformThreshold(int parallelTransformThreshold) {
+		this.parallelTransformThreshold = Math.max(1, parallelTransformThreshold);
+	}
+
+	// hands geometry instance transforms to the listener as raw batch buffers instead of GeometryUpdateEvents.
+	// the batches are copied into the frame packet and the listener is called wherever frames are presented, see
+	// InstanceStreamListener. pass null to go back to GeometryUpdateEvents
+	public void setInstanceStreamListener(InstanceStreamListener instanceStreamListener) {
+		this.instanceStreamListener = instanceStreamListener;
+		for (SceneLayer sceneLayer : sceneLayers) {
+			sceneLayer.getRenderingConversion().setInstanceStreaming(instanceStreamListener != null);
+		}
+	}
+
+	// geometry instance updates within epsilon (per matrix element) of the last transform sent are skipped.
+	// 0 only skips exact repeats
+	public void setInstanceUpdateEpsilon(float epsilon) {
+		for (SceneLayer sceneLayer : sceneLayers) {
+			sceneLayer.getRenderingConversion().getSentTransformFilter().setEpsilon(epsilon);
+		}
+	}
+
+	// geometry instance updates are sent with the transform they moved from as well, and the render thread blends
+	// between the two using the schedulers alpha. lets the simulation tick well below the display rate without
+	// motion juddering. ignored for batches going to an instance stream listener
+	public void setRenderInterpolation(boolean renderInterpolation) {
+		for (SceneLayer sceneLayer : sceneLayers) {
+			sceneLayer.getRenderingConversion().setInstanceInterpolation(renderInterpolation);
+		}
+	}
+
+	public TextureRegistry getTextureRegistry() {
+		return textureRegistry;
+	}
+
+	// unused heightmap meshes are kept on the renderer up to this many (estimated) bytes
+	public HeightMapCache getHeightMapCache() {
+		return heightMapCache;
+	}
+
+	// streams terrain chunks in and out around each layers camera instead of sending them all as they're created.
+	// call before start
+	public void setTerrainStreaming(float loadRadius, float unloadRadius, int maxUploadsPerFrame) {
+		setTerrainStreaming(loadRadius, unloadRadius, maxUploadsPerFrame, (unloadRadius - loadRadius) / 4);
+	}
+
+	// as above, with how far the camera has to move before the chunks are looked at again
+	public void setTerrainStreaming(float loadRadius, float unloadRadius, int maxUploadsPerFrame, float reevaluateDistance) {
+		for (SceneLayer sceneLayer : sceneLayers) {
+			sceneLayer.getRenderingConversion().setTerrainStreamer(
+					new TerrainStreamer(loadRadius, unloadRadius, maxUploadsPerFrame, reevaluateDistance));
+		}
+	}
+
+	// keeps a spatial index of every layers geometry and works out what each camera can see. with cullInstances
+	// set, instances no camera can see are taken off the renderer. call before start
+	public void setVisibilityCulling(float cellSize, ModelBoundsProvider modelBoundsProvider, boolean cullInstances) {
+		for (SceneLayer sceneLayer : sceneLayers) {
+			sceneLayer.getRenderingConversion().setVisibilityCuller(new VisibilityCuller(cellSize, modelBoundsProvider, cullInstances));
+		}
+	}
+
+	// told about every change to what each camera can see, needs setVisibilityCulling first
+	public void setVisibilityListener(VisibilityListener visibilityListener) {
+		for (SceneLayer sceneLayer : sceneLayers) {
+			VisibilityCuller visibilityCuller = sceneLayer.getRenderingConversion().getVisibilityCuller();
+			if (visibilityCuller != null) {
+				visibilityCuller.setVisibilityListener(visibilityListener);
+			}
+		}
+	}
+
+	// answers picks by ray casting on the cpu, and stops sending pickables to the renderer for its picking pass.
+	// each layers PickingSystem stops listening to the renderer (which has nothing left to pick with) and gets its
+	// picks from pickScreen instead. pickEvent turns a pick (null if nothing was hit) into the event PickingSystem
+	// takes from the renderer, null to not pass that pick on. call before start
+	public void setCpuPicking(ModelBoundsProvider modelBoundsProvider, Function<UUID, Event<?>> pickEvent) {
+		this.pickEvent = Objects.requireNonNull(pickEvent);
+		for (int i = 0; i < sceneLayers.size(); i++) {
+			SceneLayer sceneLayer = sceneLayers.get(i);
+			sceneLayer.getRenderingConversion().setPickingService(new PickingService(modelBoundsProvider));
+			sceneLayer.getRenderingConversion().setPickingStreams(false);
+			pickingRelays.get(i).disconnect();
+		}
+	}
+
+	// picks through the layers camera, x and y in normalised device coordinates, and hands the result to the
+	// layers PickingSystem. returns what was hit, null if nothing was
+	public UUID pickScreen(String layerName, float x, float y) {
+		for (int i = 0; i < sceneLayers.size(); i++) {
+			SceneLayer sceneLayer = sceneLayers.get(i);
+			if (!sceneLayer.getLayerName().equals(layerName)) {
+				continue;
+			}
+			PickingService pickingService = sceneLayer.getRenderingConversion().getPickingService();
+			if (pickingService == null) {
+				throw new IllegalStateException("CPU picking isn't on, picks for layer " + layerName + " come from the renderer");
+			}
+			UUID picked = pickingService.pickScreen(x, y);
+			Event<?> event = pickEvent.apply(picked);
+			if (event != null) {
+				pickingRelays.get(i).deliver(event);
+			}
+			return picked;
+		}
+		throw new IllegalArgumentException("No layer called " + layerName);
+	}
+
+	// null if the layer doesn't exist or cpu picking isn't on
+	public PickingService getPickingService(String layerName) {
+		for (SceneLayer sceneLayer : sceneLayers) {
+			if (sceneLayer.getLayerName().equals(layerName)) {
+				return sceneLayer.getRenderingConversion().getPickingService();
+			}
+		}
+		return null;
+	}
+
+	public AssetPipeline getAssetPipeline() {
+		return assetPipeline;
+	}
+
+	// per layer, per phase tick timings
+	public FrameMetrics getFrameMetrics() {
+		return frameMetrics;
+	}
+
+	// hands the formatted frame metrics to the consumer this often, on the update thread, then resets them. 0
+	// turns it off (the default)
+	public void setMetricsDumpInterval(double seconds, Consumer<String> metricsConsumer) {
+		long interval = Math.max(0, Math.round(seconds * 1000000000.0));
+		if (interval > 0) {
+			this.metricsConsumer = Objects.requireNonNull(metricsConsumer);
+		}
+		this.metricsDumpIntervalNanos = interval;
+	}
+
 	public void start() {
 
-		executorService.execute(this::render);
+		if (renderSink.needsRenderThread()) {
+			executorService.execute(this::render);
+		}
 
 		executorService.execute(this::update);
 	}
+
+	// passes the renderers picking results on to a layers PickingSystem until it is disconnected, after which it
+	// only gets the cpu picks delivered to it
+	private static final class PickingRelay implements Subscribable {
+
+		private final PickingSystem pickingSystem;
+		private volatile boolean connected = true;
+
+		private PickingRelay(PickingSystem pickingSystem) {
+			this.pickingSystem = pickingSystem;
+		}
+
+		private void disconnect() {
+			connected = false;
+		}
+
+		// a pick PickingSystem can't take would otherwise just vanish
+		private void deliver(Event<?> event) {
+			if (!pickingSystem.supports(event.getClass())) {
+				throw new IllegalArgumentException("PickingSystem doesn't take " + event.getClass().getName() + " events as picks");
+			}
+			pickingSystem.handle(event);
+		}
+
+		@Override
+		public void handle(Event<?> event) {
+			if (connected) {
+				pickingSystem.handle(event);
+			}
+		}
+
+		@Override
+		public boolean supports(Class<? extends Event> aClass) {
+			return connected && pickingSystem.supports(aClass);
+		}
+	}
+
+	// writes a layers render events into its slot in the back packet. interpolation targets are staged per layer
+	// as layers are ticked side by side, and merged into the packet after they have all joined
+	private final class LayerFrameWriter implements FrameEventWriter {
+
+		private final int layerIndex;
+		private final InterpolationTargets interpolationTargets = new InterpolationTargets();
+
+		private LayerFrameWriter(int layerIndex) {
+			this.layerIndex = layerIndex;
+		}
+
+		@Override
+		public void write(Event<?> event) {
+			frameHandoff.back().add(layerIndex, event);
+		}
+
+		@Override
+		public void writeInterpolated(InstanceBatch instanceBatch, String layerName) {
+			interpolationTargets.add(instanceBatch, layerName);
+		}
+
+		@Override
+		public void writeStreamed(InstanceBatch instanceBatch, String layerName) {
+			frameHandoff.back().addStreamed(layerIndex, instanceBatch, layerName);
+		}
+
+		@Override
+		public void writeRemoved(Set<UUID> instanceIds) {
+			frameHandoff.back().addRemoved(layerIndex, instanceIds);
+		}
+
+		private void flushInterpolated() {
+			if (interpolationTargets.size() > 0) {
+				frameHandoff.back().addInterpolated(interpolationTargets);
+				interpolationTargets.clear();
+			}
+		}
+	}
+
+	private final class LayerTickTask extends RecursiveAction {
+
+		private final SceneLayer sceneLayer;
+		private long step;
+
+		private LayerTickTask(SceneLayer sceneLayer) {
+			this.sceneLayer = sceneLayer;
+		}
+
+		@Override
+		protected void compute() {
+			updateLayer(sceneLayer, step);
+		}
+	}
 }
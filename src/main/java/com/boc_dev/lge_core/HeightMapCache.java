@@ -0,0 +1,209 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.interfaces.Event;
+import com.boc_dev.graphics_library.communication.HeightMapMeshCreateEvent;
+import com.boc_dev.graphics_library.communication.HeightMapMeshRemoveEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+
+// keeps heightmap meshes on the renderer after the last chunk using them has gone, so a chunk streaming back in
+// with the same name and grid is a cache hit instead of a rebuild. each mesh goes to the renderer under the chunks
+// name plus a hash of its grid and cell spacing, so chunks sharing a name but not a grid each get their own mesh
+// and an edited chunk never replaces a mesh other chunks are still drawing. a matching hash is only a hit once the
+// grids themselves have been compared, a collision just gets a name of its own. unused meshes are evicted least recently
+// used first once the estimated size of everything resident goes over the budget. evictions only happen at the
+// end of a tick (like texture releases) so another layer can still pick a mesh up in the same tick.
+// shared by every layer, the renderers meshes aren't per layer
+public class HeightMapCache {
+
+	private static final long DEFAULT_BUDGET_BYTES = 64L * 1024 * 1024;
+
+	private static final class Entry {
+		// what the renderer knows the mesh as
+		private final String name;
+		// the snapshot the mesh was built from, never changed after
+		private final float[][] grid;
+		private final float cellSpace;
+		private final long bytes;
+		private int references = 0;
+
+		private Entry(String name, float[][] grid, float cellSpace, long bytes) {
+			this.name = name;
+			this.grid = grid;
+			this.cellSpace = cellSpace;
+			this.bytes = bytes;
+		}
+
+		// compared the same way they are hashed, by bits
+		private boolean matches(float[][] otherGrid, float otherCellSpace) {
+			if (!sameBits(cellSpace, otherCellSpace) || grid.length != otherGrid.length) {
+				return false;
+			}
+			// a chunk coming back with the snapshot it made this mesh from
+			if (grid == otherGrid) {
+				return true;
+			}
+			for (int i = 0; i < grid.length; i++) {
+				float[] row = grid[i];
+				float[] otherRow = otherGrid[i];
+				if (row.length != otherRow.length) {
+					return false;
+				}
+				for (int j = 0; j < row.length; j++) {
+					if (!sameBits(row[j], otherRow[j])) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+	}
+
+	// everything the renderer currently has, by mesh name
+	private final HashMap<String, Entry> resident = new HashMap<>();
+	// resident but unused, least recently released first
+	private final LinkedHashMap<String, Entry> unused = new LinkedHashMap<>();
+	// which mesh each chunk took a reference on
+	private final IdentityHashMap<Object, Entry> owners = new IdentityHashMap<>();
+
+	private long budgetBytes = DEFAULT_BUDGET_BYTES;
+	private long residentBytes = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	// references the mesh for this grid for owner and returns the name it is on the renderer under, for the
+	// chunks instances to use. if the renderer hasn't got it the create is written here. grid has to be a snapshot
+	// nothing is going to change, as it is kept to compare against
+	public synchronized String acquire(Object owner, String name, float[][] grid, float cellSpace, long contentHash, long bytes, FrameEventWriter frameEventWriter) {
+
+		release(owner);
+
+		String meshName = name + "#" + Long.toHexString(contentHash);
+
+		// same hash but a different grid, try the next name along until there is a match or a free name
+		Entry entry = resident.get(meshName);
+		for (int collision = 1; entry != null && !entry.matches(grid, cellSpace); collision++) {
+			meshName = name + "#" + Long.toHexString(contentHash) + "~" + collision;
+			entry = resident.get(meshName);
+		}
+
+		if (entry != null) {
+			reference(owner, entry);
+			hits++;
+			return meshName;
+		}
+
+		Entry created = new Entry(meshName, grid, cellSpace, bytes);
+		resident.put(meshName, created);
+		residentBytes += bytes;
+		reference(owner, created);
+		misses++;
+		frameEventWriter.write(new HeightMapMeshCreateEvent(meshName, grid, cellSpace));
+		return meshName;
+	}
+
+	// chunk is gone. its mesh stays on the renderer until it gets evicted. returns the mesh name it was using, null
+	// if it never acquired one
+	public synchronized String release(Object owner) {
+		Entry entry = owners.remove(owner);
+		if (entry == null) {
+			return null;
+		}
+		if (--entry.references == 0 && resident.get(entry.name) == entry) {
+			unused.put(entry.name, entry);
+		}
+		return entry.name;
+	}
+
+	// evicts unused meshes until everything fits in the budget again, once every layer has finished the tick
+	public synchronized void flushEvictions(Consumer<Event<?>> eventConsumer) {
+		Iterator<Entry> iterator = unused.values().iterator();
+		while (residentBytes > budgetBytes && iterator.hasNext()) {
+			Entry entry = iterator.next();
+			iterator.remove();
+			resident.remove(entry.name);
+			residentBytes -= entry.bytes;
+			evictions++;
+			eventConsumer.accept(new HeightMapMeshRemoveEvent(entry.name));
+		}
+	}
+
+	// 0 keeps nothing once it is unused, same as not caching at all
+	public synchronized void setBudgetBytes(long budgetBytes) {
+		this.budgetBytes = Math.max(0, budgetBytes);
+	}
+
+	public synchronized long getBudgetBytes() {
+		return budgetBytes;
+	}
+
+	public synchronized long getResidentBytes() {
+		return residentBytes;
+	}
+
+	public synchronized int getResidentMeshes() {
+		return resident.size();
+	}
+
+	public synchronized int getUnusedMeshes() {
+		return unused.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	// grid values are hashed by their bits, so -0 and 0 (or two NaNs) count as different. fine for a cache
+	public static long contentHash(float[][] grid, float cellSpace) {
+		long hash = 0xcbf29ce484222325L;
+		hash = mix(hash, Float.floatToRawIntBits(cellSpace));
+		hash = mix(hash, grid.length);
+		for (float[] row : grid) {
+			hash = mix(hash, row.length);
+			for (float value : row) {
+				hash = mix(hash, Float.floatToRawIntBits(value));
+			}
+		}
+		return hash;
+	}
+
+	// rough size of the mesh the renderer builds from a grid. a position, normal and texture coordinate per
+	// vertex and two triangles per cell
+	public static long estimateBytes(float[][] grid) {
+		long vertices = 0;
+		for (float[] row : grid) {
+			vertices += row.length;
+		}
+		return vertices * 8 * Float.BYTES + vertices * 6 * Integer.BYTES;
+	}
+
+	private static long mix(long hash, int value) {
+		return (hash ^ value) * 0x100000001b3L;
+	}
+
+	private static boolean sameBits(float a, float b) {
+		return Float.floatToRawIntBits(a) == Float.floatToRawIntBits(b);
+	}
+
+	private void reference(Object owner, Entry entry) {
+		if (entry.references++ == 0) {
+			unused.remove(entry.name);
+		}
+		owners.put(owner, entry);
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.boc_dev.lge_core;
+
+// a copy of a terrain chunks grid, hashed and sized for the heightmap cache. kept per chunk so a chunk streaming
+// back in with the grid it had before doesn't copy and hash it all over again. that is decided by the components
+// grid array being the same one, so a grid changed in place (rather than the component being given a new one)
+// isn't picked up
+final class HeightMapSnapshot {
+
+	// the components own array, only ever compared by identity
+	private final float[][] source;
+	private final float cellSpace;
+	private final float[][] grid;
+	private final long contentHash;
+	private final long bytes;
+
+	private HeightMapSnapshot(float[][] source, float cellSpace, float[][] grid) {
+		this.source = source;
+		this.cellSpace = cellSpace;
+		this.grid = grid;
+		this.contentHash = HeightMapCache.contentHash(grid, cellSpace);
+		this.bytes = HeightMapCache.estimateBytes(grid);
+	}
+
+	static HeightMapSnapshot of(float[][] source, float cellSpace) {
+		float[][] grid = new float[source.length][];
+		for (int i = 0; i < source.length; i++) {
+			grid[i] = source[i].clone();
+		}
+		return new HeightMapSnapshot(source, cellSpace, grid);
+	}
+
+	boolean isOf(float[][] otherSource, float otherCellSpace) {
+		return source == otherSource && Float.floatToRawIntBits(cellSpace) == Float.floatToRawIntBits(otherCellSpace);
+	}
+
+	float getCellSpace() {
+		return cellSpace;
+	}
+
+	float[][] getGrid() {
+		return grid;
+	}
+
+	long getContentHash() {
+		return contentHash;
+	}
+
+	long getBytes() {
+		return bytes;
+	}
+}
@@ -0,0 +1,197 @@
+package com.boc_dev.lge_core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+// per frame instance transforms for one batch. transforms go straight into a direct buffer, already transposed
+// into the column major layout the renderer uploads, with the instance ids in a matching array. both are kept
+// and reused between frames, so once they have grown to fit nothing is allocated per instance.
+// writes are coalesced per instance, if the same id is written twice in a frame the later transform replaces the
+// earlier one in its slot, so the renderer only ever gets one (the latest) transform per instance.
+// when the renderer is interpolating, the transform each instance had before this frame is kept alongside it in
+// a second buffer
+public class InstanceBatch {
+
+	private static final int MATRIX_FLOATS = 16;
+
+	private BatchKey batchKey;
+	private UUID[] ids;
+	private FloatBuffer transforms;
+	// only allocated once something asks for previous transforms
+	private FloatBuffer previousTransforms = null;
+	private int count = 0;
+	private int duplicateWrites = 0;
+	private final UuidSlotIndex slotIndex;
+
+	InstanceBatch(BatchKey batchKey, int initialCapacity) {
+		this.batchKey = batchKey;
+		this.ids = new UUID[initialCapacity];
+		this.transforms = allocate(initialCapacity);
+		this.slotIndex = new UuidSlotIndex(initialCapacity);
+	}
+
+	// takes the row major values of the global transform
+	void add(UUID id, float[] transform) {
+		add(id, transform, null);
+	}
+
+	// previous is the row major transform the instance had before this frame, null if nobody needs it
+	void add(UUID id, float[] transform, float[] previous) {
+
+		// already written this frame, last write wins. the previous transform stays as the one from the first write
+		int slot = slotIndex.get(id);
+		if (slot >= 0) {
+			MatrixMath.transpose(transform, transforms, slot * MATRIX_FLOATS);
+			duplicateWrites++;
+			return;
+		}
+
+		if (count == ids.length) {
+			grow();
+		}
+		ids[count] = id;
+		MatrixMath.transpose(transform, transforms, count * MATRIX_FLOATS);
+		if (previous != null && previousTransforms == null) {
+			previousTransforms = allocate(ids.length);
+		}
+		if (previousTransforms != null) {
+			MatrixMath.transpose(previous != null ? previous : transform, previousTransforms, count * MATRIX_FLOATS);
+		}
+		slotIndex.put(id, count);
+		count++;
+	}
+
+	// takes an instance back out of this frames batch, ie it has been removed from the renderer since it was
+	// written. the last instance is moved into its slot, so order is not kept
+	boolean remove(UUID id) {
+
+		int slot = slotIndex.remove(id);
+		if (slot < 0) {
+			return false;
+		}
+
+		int last = count - 1;
+		if (slot != last) {
+			ids[slot] = ids[last];
+			move(transforms, last, slot);
+			if (previousTransforms != null) {
+				move(previousTransforms, last, slot);
+			}
+			slotIndex.put(ids[slot], slot);
+		}
+		ids[last] = null;
+		count--;
+		return true;
+	}
+
+	// makes this a copy of another batches current transforms (not the previous ones), for handing them over to
+	// another thread
+	void copyFrom(InstanceBatch instanceBatch) {
+
+		clear();
+		batchKey = instanceBatch.batchKey;
+		if (ids.length < instanceBatch.count) {
+			ids = new UUID[instanceBatch.count];
+			transforms = allocate(instanceBatch.count);
+			previousTransforms = null;
+		}
+
+		for (int i = 0; i < instanceBatch.count; i++) {
+			ids[i] = instanceBatch.ids[i];
+			slotIndex.put(ids[i], i);
+		}
+
+		FloatBuffer source = instanceBatch.transforms.duplicate();
+		source.position(0).limit(instanceBatch.count * MATRIX_FLOATS);
+		FloatBuffer target = transforms.duplicate();
+		target.position(0);
+		target.put(source);
+
+		count = instanceBatch.count;
+	}
+
+	void clear() {
+		Arrays.fill(ids, 0, count, null);
+		slotIndex.clear();
+		count = 0;
+		duplicateWrites = 0;
+	}
+
+	public BatchKey getBatchKey() {
+		return batchKey;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	// how many writes this frame were for an instance that already had one
+	public int getDuplicateWrites() {
+		return duplicateWrites;
+	}
+
+	public UUID[] getIds() {
+		return ids;
+	}
+
+	// instance i lives at floats [i * 16, i * 16 + 16). position and limit are not touched while writing, so use
+	// absolute gets or set them before handing it to a bulk upload
+	public FloatBuffer getTransforms() {
+		return transforms;
+	}
+
+	// copies one transform back out, for paths that still need a Matrix4f per instance
+	void copyTransform(int index, float[] out) {
+		copyTransform(index, out, 0);
+	}
+
+	void copyTransform(int index, float[] out, int outOffset) {
+		copy(transforms, index, out, outOffset);
+	}
+
+	// the transform the instance had before this frame, or its current one if previous transforms aren't kept
+	void copyPreviousTransform(int index, float[] out, int outOffset) {
+		copy(previousTransforms != null ? previousTransforms : transforms, index, out, outOffset);
+	}
+
+	private void grow() {
+		int capacity = ids.length * 2;
+		ids = Arrays.copyOf(ids, capacity);
+		transforms = grow(transforms, capacity);
+		if (previousTransforms != null) {
+			previousTransforms = grow(previousTransforms, capacity);
+		}
+	}
+
+	private FloatBuffer grow(FloatBuffer buffer, int capacity) {
+		FloatBuffer grown = allocate(capacity);
+		for (int i = 0; i < count * MATRIX_FLOATS; i++) {
+			grown.put(i, buffer.get(i));
+		}
+		return grown;
+	}
+
+	private static void copy(FloatBuffer buffer, int index, float[] out, int outOffset) {
+		int offset = index * MATRIX_FLOATS;
+		for (int i = 0; i < MATRIX_FLOATS; i++) {
+			out[outOffset + i] = buffer.get(offset + i);
+		}
+	}
+
+	private static void move(FloatBuffer buffer, int from, int to) {
+		int fromOffset = from * MATRIX_FLOATS;
+		int toOffset = to * MATRIX_FLOATS;
+		for (int i = 0; i < MATRIX_FLOATS; i++) {
+			buffer.put(toOffset + i, buffer.get(fromOffset + i));
+		}
+	}
+
+	private static FloatBuffer allocate(int capacity) {
+		return ByteBuffer.allocateDirect(capacity * MATRIX_FLOATS * Float.BYTES)
+				.order(ByteOrder.nativeOrder())
+				.asFloatBuffer();
+	}
+}
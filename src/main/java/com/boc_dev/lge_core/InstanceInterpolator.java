@@ -0,0 +1,37 @@
+package com.boc_dev.lge_core;
+
+// render thread side of interpolation. keeps its own copy of the last frames targets (the packet goes back to the
+// update thread on the next acquire) and redraws them at whatever alpha the scheduler is at, so instances move
+// smoothly at the render rate no matter how slowly the simulation is ticking. everything is shown one tick behind.
+// alpha only ever moves forward for a given frame, so it holds still if the next tick is late rather than jumping
+// back to the start
+class InstanceInterpolator {
+
+	private final InterpolationTargets active = new InterpolationTargets();
+	private float shownAlpha = -1;
+
+	// call with a new packet before its events are dispatched. the last frames instances are finished off at their
+	// end transform first, so nothing is left part of the way there and nothing gets moved after it's removed
+	void beginFrame(RenderSink renderSink, FramePacket framePacket) {
+		if (active.size() > 0 && shownAlpha < 1) {
+			active.sendTo(renderSink, 1);
+		}
+		active.clear();
+		framePacket.copyInterpolationTargetsTo(active);
+		shownAlpha = -1;
+	}
+
+	// call every render frame
+	void render(RenderSink renderSink, double alpha) {
+
+		float clamped = (float) Math.max(0, Math.min(1, alpha));
+
+		// nothing has moved on since the last render
+		if (active.size() == 0 || clamped <= shownAlpha) {
+			return;
+		}
+
+		active.sendTo(renderSink, clamped);
+		shownAlpha = clamped;
+	}
+}
@@ -0,0 +1,11 @@
+package com.boc_dev.lge_core;
+
+public interface InstanceStreamListener {
+
+	// called on whichever thread presents frames (the render thread, or the update thread for sinks without one),
+	// once per batch that had instance updates in the frame, straight after the frames events have gone to the sink.
+	// the batch is the frames own copy and is reused once the call returns, so upload or copy it before returning.
+	// if the renderer skipped frames the same batch id can come through more than once, later ones win
+	void onInstanceBatch(String layerName, InstanceBatch instanceBatch);
+
+}
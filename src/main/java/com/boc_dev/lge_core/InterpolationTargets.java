@@ -0,0 +1,207 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.graphics_library.communication.GeometryUpdateEvent;
+import com.boc_dev.graphics_library.objects.render_scene.InstanceObject;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+// the previous and current transform of every instance that moved in a frame, grouped into runs by batch so each
+// run can go out as one GeometryUpdateEvent. transforms are kept transposed, same as the renderer is sent them.
+// the instance objects sent are built on the first send after the targets change and then blended into in place
+// on every send after that, so redrawing the same targets at the render rate allocates nothing per instance
+class InterpolationTargets {
+
+	private static final int MATRIX_FLOATS = 16;
+
+	private String[] runBatchIds = new String[16];
+	private String[] runLayerNames = new String[16];
+	private int[] runEnds = new int[16];
+	private int runCount = 0;
+
+	private UUID[] ids = new UUID[256];
+	private float[] previous = new float[256 * MATRIX_FLOATS];
+	private float[] current = new float[256 * MATRIX_FLOATS];
+	private int count = 0;
+
+	private final ArrayList<HashSet<InstanceObject>> runInstances = new ArrayList<>();
+	private Matrix4f[] blended = new Matrix4f[256];
+	private boolean instancesBuilt = false;
+
+	void add(InstanceBatch instanceBatch, String layerName) {
+
+		int batchCount = instanceBatch.getCount();
+		ensureCapacity(count + batchCount);
+
+		for (int i = 0; i < batchCount; i++) {
+			ids[count] = instanceBatch.getIds()[i];
+			instanceBatch.copyPreviousTransform(i, previous, count * MATRIX_FLOATS);
+			instanceBatch.copyTransform(i, current, count * MATRIX_FLOATS);
+			count++;
+		}
+
+		addRun(instanceBatch.getBatchKey().getId(), layerName, count);
+		instancesBuilt = false;
+	}
+
+	void appendFrom(InterpolationTargets interpolationTargets) {
+
+		int offset = count;
+		ensureCapacity(count + interpolationTargets.count);
+
+		System.arraycopy(interpolationTargets.ids, 0, ids, count, interpolationTargets.count);
+		System.arraycopy(interpolationTargets.previous, 0, previous, count * MATRIX_FLOATS, interpolationTargets.count * MATRIX_FLOATS);
+		System.arraycopy(interpolationTargets.current, 0, current, count * MATRIX_FLOATS, interpolationTargets.count * MATRIX_FLOATS);
+		count += interpolationTargets.count;
+
+		for (int i = 0; i < interpolationTargets.runCount; i++) {
+			addRun(interpolationTargets.runBatchIds[i], interpolationTargets.runLayerNames[i], offset + interpolationTargets.runEnds[i]);
+		}
+		instancesBuilt = false;
+	}
+
+	// drops the targets of instances that have since been removed from the renderer. runs left empty go too
+	void removeAll(Set<UUID> removed) {
+
+		if (count == 0 || removed.isEmpty()) {
+			return;
+		}
+
+		int kept = 0;
+		int keptRuns = 0;
+		int start = 0;
+
+		for (int run = 0; run < runCount; run++) {
+
+			int runStart = kept;
+			for (int i = start; i < runEnds[run]; i++) {
+				if (removed.contains(ids[i])) {
+					continue;
+				}
+				if (kept != i) {
+					ids[kept] = ids[i];
+					System.arraycopy(previous, i * MATRIX_FLOATS, previous, kept * MATRIX_FLOATS, MATRIX_FLOATS);
+					System.arraycopy(current, i * MATRIX_FLOATS, current, kept * MATRIX_FLOATS, MATRIX_FLOATS);
+				}
+				kept++;
+			}
+			start = runEnds[run];
+
+			if (kept > runStart) {
+				runBatchIds[keptRuns] = runBatchIds[run];
+				runLayerNames[keptRuns] = runLayerNames[run];
+				runEnds[keptRuns] = kept;
+				keptRuns++;
+			}
+		}
+
+		Arrays.fill(ids, kept, count, null);
+		Arrays.fill(blended, kept, count, null);
+		Arrays.fill(runBatchIds, keptRuns, runCount, null);
+		Arrays.fill(runLayerNames, keptRuns, runCount, null);
+		count = kept;
+		runCount = keptRuns;
+		instancesBuilt = false;
+	}
+
+	void clear() {
+		Arrays.fill(ids, 0, count, null);
+		Arrays.fill(blended, 0, count, null);
+		for (HashSet<InstanceObject> instances : runInstances) {
+			instances.clear();
+		}
+		instancesBuilt = false;
+		Arrays.fill(runBatchIds, 0, runCount, null);
+		Arrays.fill(runLayerNames, 0, runCount, null);
+		count = 0;
+		runCount = 0;
+	}
+
+	int size() {
+		return count;
+	}
+
+	// sends every instance at prev + (curr - prev) * alpha. matrices are blended element by element, which is fine
+	// for the small change one tick makes but would shear a big rotation.
+	// the same instance objects go out on every call until the targets change, so the renderer must be done with
+	// one frames events before the next call (it always is, they are both on the render thread)
+	void sendTo(RenderSink renderSink, float alpha) {
+
+		if (!instancesBuilt) {
+			buildInstances();
+		}
+
+		int start = 0;
+
+		for (int run = 0; run < runCount; run++) {
+
+			for (int i = start; i < runEnds[run]; i++) {
+				float[] values = blended[i].getValues();
+				int offset = i * MATRIX_FLOATS;
+				for (int j = 0; j < MATRIX_FLOATS; j++) {
+					float from = previous[offset + j];
+					values[j] = from + (current[offset + j] - from) * alpha;
+				}
+			}
+
+			renderSink.accept(new GeometryUpdateEvent(
+					runBatchIds[run],
+					runInstances.get(run),
+					runLayerNames[run]
+			));
+
+			start = runEnds[run];
+		}
+	}
+
+	// one instance object per target, each with a matrix of its own to blend into. the matrices are new every time
+	// the targets change rather than reused, as the renderer may have kept the last ones as instance transforms
+	private void buildInstances() {
+
+		int start = 0;
+
+		for (int run = 0; run < runCount; run++) {
+
+			if (run == runInstances.size()) {
+				runInstances.add(new HashSet<>());
+			}
+			HashSet<InstanceObject> instances = runInstances.get(run);
+			instances.clear();
+
+			for (int i = start; i < runEnds[run]; i++) {
+				blended[i] = new Matrix4f(new float[MATRIX_FLOATS]);
+				instances.add(new InstanceObject(ids[i], blended[i]));
+			}
+
+			start = runEnds[run];
+		}
+
+		instancesBuilt = true;
+	}
+
+	private void addRun(String batchId, String layerName, int end) {
+		if (runCount == runEnds.length) {
+			runBatchIds = Arrays.copyOf(runBatchIds, runCount * 2);
+			runLayerNames = Arrays.copyOf(runLayerNames, runCount * 2);
+			runEnds = Arrays.copyOf(runEnds, runCount * 2);
+		}
+		runBatchIds[runCount] = batchId;
+		runLayerNames[runCount] = layerName;
+		runEnds[runCount] = end;
+		runCount++;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > ids.length) {
+			int grown = Math.max(capacity, ids.length * 2);
+			ids = Arrays.copyOf(ids, grown);
+			previous = Arrays.copyOf(previous, grown * MATRIX_FLOATS);
+			current = Arrays.copyOf(current, grown * MATRIX_FLOATS);
+			blended = Arrays.copyOf(blended, grown);
+		}
+	}
+}
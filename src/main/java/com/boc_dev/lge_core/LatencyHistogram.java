@@ -0,0 +1,94 @@
+package com.boc_dev.lge_core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// fixed size log linear histogram of nanosecond durations. every power of two is split into 8 linear buckets, so
+// any percentile is within about 12% of the real value, and recording is a couple of shifts and one array write.
+// one thread records, any thread can read
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private volatile long count = 0;
+	private volatile long totalNanos = 0;
+	private volatile long maxNanos = 0;
+
+	// single writer only, hence the plain read then lazy set rather than an atomic increment
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		int bucket = bucketFor(nanos);
+		buckets.lazySet(bucket, buckets.get(bucket) + 1);
+		count++;
+		totalNanos += nanos;
+		if (nanos > maxNanos) {
+			maxNanos = nanos;
+		}
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	public double getMeanNanos() {
+		long samples = count;
+		return samples == 0 ? 0 : totalNanos / (double) samples;
+	}
+
+	// upper edge of the bucket the percentile falls in, percentile being 0 to 100
+	public long getPercentileNanos(double percentile) {
+
+		long samples = count;
+		if (samples == 0) {
+			return 0;
+		}
+
+		long target = Math.max(1, (long) Math.ceil(samples * Math.min(100, Math.max(0, percentile)) / 100.0));
+		long seen = 0;
+
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			seen += buckets.get(bucket);
+			if (seen >= target) {
+				return Math.min(upperBound(bucket), maxNanos);
+			}
+		}
+
+		return maxNanos;
+	}
+
+	// not safe to call while something is recording, the counts could end up slightly out
+	public void reset() {
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			buckets.lazySet(bucket, 0);
+		}
+		count = 0;
+		totalNanos = 0;
+		maxNanos = 0;
+	}
+
+	private static int bucketFor(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int shift = (63 - Long.numberOfLeadingZeros(nanos)) - SUB_BUCKET_BITS;
+		int subBucket = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,27 @@
+package com.boc_dev.lge_core;
+
+// one histogram per tick phase for a single layer
+public class LayerTimings {
+
+	private final LatencyHistogram[] histograms = new LatencyHistogram[TickPhase.values().length];
+
+	LayerTimings() {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	void record(TickPhase tickPhase, long nanos) {
+		histograms[tickPhase.ordinal()].record(nanos);
+	}
+
+	public LatencyHistogram getHistogram(TickPhase tickPhase) {
+		return histograms[tickPhase.ordinal()];
+	}
+
+	public void reset() {
+		for (LatencyHistogram histogram : histograms) {
+			histogram.reset();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.boc_dev.lge_core;
+
+import java.util.Arrays;
+
+// open addressing map from a long key to a value, for lookups on per frame paths. no boxing and no entry objects, so
+// lookups and inserts don't allocate once the table has grown to size. values can't be null, a null value is how an
+// empty slot is told apart from a key of 0
+class LongKeyMap<V> {
+
+	private long[] keys;
+	private V[] values;
+	private int size = 0;
+
+	LongKeyMap(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity *= 2;
+		}
+		this.keys = new long[capacity];
+		this.values = newValues(capacity);
+	}
+
+	// null if the key isn't in the map
+	V get(long key) {
+		int mask = keys.length - 1;
+		int position = hash(key) & mask;
+		while (values[position] != null) {
+			if (keys[position] == key) {
+				return values[position];
+			}
+			position = (position + 1) & mask;
+		}
+		return null;
+	}
+
+	void put(long key, V value) {
+
+		if (value == null) {
+			throw new IllegalArgumentException("Values can't be null");
+		}
+
+		if ((size + 1) * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+
+		int mask = keys.length - 1;
+		int position = hash(key) & mask;
+		while (values[position] != null) {
+			if (keys[position] == key) {
+				values[position] = value;
+				return;
+			}
+			position = (position + 1) & mask;
+		}
+
+		keys[position] = key;
+		values[position] = value;
+		size++;
+	}
+
+	// removes the key and returns the value it had, or null if it wasn't in the map
+	V remove(long key) {
+
+		int mask = keys.length - 1;
+		int position = hash(key) & mask;
+
+		while (values[position] != null) {
+
+			if (keys[position] == key) {
+
+				V value = values[position];
+
+				// shift the rest of the probe run back so lookups never hit a gap in the middle of it
+				int gap = position;
+				int next = (position + 1) & mask;
+				while (values[next] != null) {
+					int ideal = hash(keys[next]) & mask;
+					boolean canMove = next > gap
+							? ideal <= gap || ideal > next
+							: ideal <= gap && ideal > next;
+					if (canMove) {
+						keys[gap] = keys[next];
+						values[gap] = values[next];
+						gap = next;
+					}
+					next = (next + 1) & mask;
+				}
+				values[gap] = null;
+				size--;
+
+				return value;
+			}
+
+			position = (position + 1) & mask;
+		}
+
+		return null;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	// for going through every value without an iterator, slots 0 until capacity(), skipping the null ones
+	int capacity() {
+		return values.length;
+	}
+
+	V valueAt(int slot) {
+		return values[slot];
+	}
+
+	void clear() {
+		if (size > 0) {
+			Arrays.fill(values, null);
+			size = 0;
+		}
+	}
+
+	private void resize(int capacity) {
+
+		long[] oldKeys = keys;
+		V[] oldValues = values;
+
+		keys = new long[capacity];
+		values = newValues(capacity);
+
+		int mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int position = hash(oldKeys[i]) & mask;
+				while (values[position] != null) {
+					position = (position + 1) & mask;
+				}
+				keys[position] = oldKeys[i];
+				values[position] = oldValues[i];
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> V[] newValues(int capacity) {
+		return (V[]) new Object[capacity];
+	}
+
+	// cell keys are packed coordinates, so neighbours only differ in their low bits. spread them over the table
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
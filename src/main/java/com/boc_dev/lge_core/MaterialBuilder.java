@@ -6,8 +6,15 @@ import com.boc_dev.graphics_library.objects.materials.BasicMaterial;
 import com.boc_dev.graphics_library.objects.materials.Material;
 import com.boc_dev.graphics_library.objects.materials.NormalMaterial;
 
+import java.util.UUID;
+
 public class MaterialBuilder {
 	public Material build(MaterialObject materialObject) {
+		return build(materialObject.getUuid(), contentOf(materialObject));
+	}
+
+	// everything that decides what the built material looks like
+	MaterialContent contentOf(MaterialObject materialObject) {
 
 		// get children of material
 		// there are a couple possible material types it can be (2 at the moment, could be more in the future.
@@ -24,28 +31,40 @@ public class MaterialBuilder {
 			}
 		}
 
+		return new MaterialContent(
+				texturePath,
+				normalPath,
+				materialObject.getDiffuseColour(),
+				materialObject.getSpecularColour(),
+				materialObject.getShininess(),
+				materialObject.getReflectance()
+		);
+	}
+
+	Material build(UUID uuid, MaterialContent content) {
+
 		Material material;
 
-		if (normalPath.isBlank()) {
+		if (content.isBasic()) {
 			material = new BasicMaterial(
-					materialObject.getUuid(),
-					texturePath
+					uuid,
+					content.getTexturePath()
 			);
-		} else if (!texturePath.isBlank()) {
+		} else if (content.isNormal()) {
 			material = new NormalMaterial(
-					materialObject.getUuid(),
-					texturePath,
-					normalPath,
-					materialObject.getDiffuseColour(),
-					materialObject.getSpecularColour(),
-					materialObject.getShininess(),
-					materialObject.getReflectance()
+					uuid,
+					content.getTexturePath(),
+					content.getNormalPath(),
+					content.getDiffuseColour(),
+					content.getSpecularColour(),
+					content.getShininess(),
+					content.getReflectance()
 			);
 		}
 		// if no textures in material, return basic material with default texture in
 		else {
 			material = new BasicMaterial(
-					materialObject.getUuid(),
+					uuid,
 					"DEFAULT"
 			);
 		}
@@ -0,0 +1,102 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.graphics_library.objects.materials.Material;
+import com.boc_dev.lge_model.generated.components.MaterialObject;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+// built materials by content. a scene full of material components that all use the same textures and parameters
+// only builds one Material, and every one of them is sent that same instance under its own uuid. the shared
+// material is built with an id of its own rather than the uuid of whichever material component happened to ask
+// first, so it never points back at a component that might since have changed or been deleted.
+// entries are reference counted by the material components using them and dropped when the last one lets go.
+// not thread safe, one per render visitor
+public class MaterialCache {
+
+	private static final class Entry {
+		private final Material material;
+		private int references = 0;
+
+		private Entry(Material material) {
+			this.material = material;
+		}
+	}
+
+	private final MaterialBuilder materialBuilder;
+	private final HashMap<MaterialContent, Entry> materials = new HashMap<>();
+	// the content each material component is currently holding a reference to
+	private final HashMap<UUID, MaterialContent> users = new HashMap<>();
+
+	private volatile long hits = 0;
+	private volatile long misses = 0;
+	private volatile long evictions = 0;
+
+	MaterialCache(MaterialBuilder materialBuilder) {
+		this.materialBuilder = materialBuilder;
+	}
+
+	Material get(MaterialObject materialObject) {
+
+		MaterialContent content = materialBuilder.contentOf(materialObject);
+
+		Entry entry = materials.get(content);
+		if (entry != null) {
+			hits++;
+		} else {
+			entry = new Entry(materialBuilder.build(UUID.randomUUID(), content));
+			materials.put(content, entry);
+			misses++;
+		}
+
+		// move this components reference over, it may have been using something else before it changed
+		MaterialContent previous = users.put(materialObject.getUuid(), content);
+		if (previous == null || !previous.equals(content)) {
+			entry.references++;
+			if (previous != null) {
+				dereference(previous);
+			}
+		}
+
+		return entry.material;
+	}
+
+	// the material component has been deleted
+	void release(UUID materialUuid) {
+		MaterialContent content = users.remove(materialUuid);
+		if (content != null) {
+			dereference(content);
+		}
+	}
+
+	private void dereference(MaterialContent content) {
+		Entry entry = materials.get(content);
+		if (entry != null && --entry.references <= 0) {
+			materials.remove(content);
+			evictions++;
+		}
+	}
+
+	// distinct materials built
+	public int size() {
+		return materials.size();
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	// materials dropped because nothing was using them any more
+	public long getEvictions() {
+		return evictions;
+	}
+
+	public void clear() {
+		materials.clear();
+		users.clear();
+	}
+}
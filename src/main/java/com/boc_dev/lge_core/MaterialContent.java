@@ -0,0 +1,94 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.maths.objects.vector.Vec3f;
+
+import java.util.Objects;
+
+// the textures and parameters a material is built from. equal contents build equal materials, so it is used as the
+// material cache key. only the fields the resulting material type actually uses take part in equality, so basic
+// materials with the same texture match whatever their colours are set to
+final class MaterialContent {
+
+	private final String texturePath;
+	private final String normalPath;
+	private final Vec3f diffuseColour;
+	private final Vec3f specularColour;
+	private final float shininess;
+	private final float reflectance;
+	private final int hash;
+
+	MaterialContent(String texturePath, String normalPath, Vec3f diffuseColour, Vec3f specularColour, float shininess, float reflectance) {
+		this.texturePath = texturePath;
+		this.normalPath = normalPath;
+		this.diffuseColour = diffuseColour;
+		this.specularColour = specularColour;
+		this.shininess = shininess;
+		this.reflectance = reflectance;
+		this.hash = isNormal()
+				? Objects.hash(texturePath, normalPath, diffuseColour, specularColour, shininess, reflectance)
+				: Objects.hash(isBasic() ? texturePath : "");
+	}
+
+	// only a texture map
+	boolean isBasic() {
+		return normalPath.isBlank();
+	}
+
+	// both a texture and a normal map. a normal map on its own falls back to the default basic material
+	boolean isNormal() {
+		return !normalPath.isBlank() && !texturePath.isBlank();
+	}
+
+	String getTexturePath() {
+		return texturePath;
+	}
+
+	String getNormalPath() {
+		return normalPath;
+	}
+
+	Vec3f getDiffuseColour() {
+		return diffuseColour;
+	}
+
+	Vec3f getSpecularColour() {
+		return specularColour;
+	}
+
+	float getShininess() {
+		return shininess;
+	}
+
+	float getReflectance() {
+		return reflectance;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof MaterialContent)) {
+			return false;
+		}
+		MaterialContent that = (MaterialContent) o;
+		if (hash != that.hash || isBasic() != that.isBasic() || isNormal() != that.isNormal()) {
+			return false;
+		}
+		if (isNormal()) {
+			return texturePath.equals(that.texturePath)
+					&& normalPath.equals(that.normalPath)
+					&& Objects.equals(diffuseColour, that.diffuseColour)
+					&& Objects.equals(specularColour, that.specularColour)
+					&& Float.compare(shininess, that.shininess) == 0
+					&& Float.compare(reflectance, that.reflectance) == 0;
+		}
+		// basic, or the default material which has nothing else to compare
+		return !isBasic() || texturePath.equals(that.texturePath);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
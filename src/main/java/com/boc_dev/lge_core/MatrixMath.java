@@ -0,0 +1,104 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.maths.objects.QuaternionF;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+import com.boc_dev.maths.objects.vector.Vec3f;
+
+import java.nio.FloatBuffer;
+
+// in place versions of the 4x4 matrix operations used on the hot path. everything works on the row major float
+// arrays backing Matrix4f, writing into an output array instead of allocating a new matrix
+public final class MatrixMath {
+
+	private MatrixMath() {
+	}
+
+	// out = a * b. out must not be the same array as a or b
+	public static void multiply(float[] a, float[] b, float[] out) {
+		for (int row = 0; row < 4; row++) {
+			int r = row * 4;
+			float a0 = a[r];
+			float a1 = a[r + 1];
+			float a2 = a[r + 2];
+			float a3 = a[r + 3];
+			out[r] = a0 * b[0] + a1 * b[4] + a2 * b[8] + a3 * b[12];
+			out[r + 1] = a0 * b[1] + a1 * b[5] + a2 * b[9] + a3 * b[13];
+			out[r + 2] = a0 * b[2] + a1 * b[6] + a2 * b[10] + a3 * b[14];
+			out[r + 3] = a0 * b[3] + a1 * b[7] + a2 * b[11] + a3 * b[15];
+		}
+	}
+
+	// local TRS matrix straight into out, the same values as Matrix4f.Transform(position, rotation.toMatrix(), scale)
+	// without the rotation, scale and translation matrices in between. row vectors, so it scales, then rotates,
+	// then translates. the rotation doesn't have to be normalised
+	public static void transform(Vec3f position, QuaternionF rotation, Vec3f scale, float[] out) {
+
+		float w = rotation.getReal();
+		float x = rotation.getI();
+		float y = rotation.getJ();
+		float z = rotation.getK();
+		float lengthSquared = w * w + x * x + y * y + z * z;
+		float s = lengthSquared > 0 ? 2 / lengthSquared : 0;
+
+		float xx = x * x * s;
+		float yy = y * y * s;
+		float zz = z * z * s;
+		float xy = x * y * s;
+		float xz = x * z * s;
+		float yz = y * z * s;
+		float wx = w * x * s;
+		float wy = w * y * s;
+		float wz = w * z * s;
+
+		float sx = scale.getX();
+		float sy = scale.getY();
+		float sz = scale.getZ();
+
+		out[0] = sx * (1 - yy - zz);
+		out[1] = sx * (xy + wz);
+		out[2] = sx * (xz - wy);
+		out[3] = 0;
+		out[4] = sy * (xy - wz);
+		out[5] = sy * (1 - xx - zz);
+		out[6] = sy * (yz + wx);
+		out[7] = 0;
+		out[8] = sz * (xz + wy);
+		out[9] = sz * (yz - wx);
+		out[10] = sz * (1 - xx - yy);
+		out[11] = 0;
+		out[12] = position.getX();
+		out[13] = position.getY();
+		out[14] = position.getZ();
+		out[15] = 1;
+	}
+
+	// writes the transpose of in to out starting at offset, so it can go straight into a bigger buffer
+	public static void transpose(float[] in, float[] out, int offset) {
+		for (int row = 0; row < 4; row++) {
+			for (int col = 0; col < 4; col++) {
+				out[offset + col * 4 + row] = in[row * 4 + col];
+			}
+		}
+	}
+
+	// same again but into a float buffer, using absolute puts so the buffers position is left alone
+	public static void transpose(float[] in, FloatBuffer out, int offset) {
+		for (int row = 0; row < 4; row++) {
+			for (int col = 0; col < 4; col++) {
+				out.put(offset + col * 4 + row, in[row * 4 + col]);
+			}
+		}
+	}
+
+	// transforms compose as local * parent (row vectors), so the translation is the bottom row
+	public static void translation(float[] matrix, float[] out) {
+		out[0] = matrix[12];
+		out[1] = matrix[13];
+		out[2] = matrix[14];
+	}
+
+	// a detached copy, for anything that gets handed to another thread and must not see later in place writes
+	public static Matrix4f copyOf(Matrix4f matrix) {
+		return new Matrix4f(matrix.getValues().clone());
+	}
+}
@@ -0,0 +1,9 @@
+package com.boc_dev.lge_core;
+
+public interface ModelBoundsProvider {
+
+	// radius of a sphere around the models origin that contains the whole model, in model space. called once when
+	// a geometry is created, from the layers update thread
+	float getBoundingRadius(String modelFile);
+
+}
@@ -0,0 +1,44 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.busses.GameBus;
+import com.boc_dev.event_bus.interfaces.Event;
+
+import java.util.ArrayList;
+
+// throws every frame away. for running the simulation on its own, ie on a server
+public class NoOpRenderSink implements RenderSink {
+
+	@Override
+	public void attach(GameBus renderGameBus, ArrayList<SceneLayer> sceneLayers) {
+	}
+
+	@Override
+	public void init() {
+	}
+
+	@Override
+	public void accept(Event<?> event) {
+	}
+
+	@Override
+	public void renderFrame() {
+	}
+
+	@Override
+	public boolean shouldClose() {
+		return false;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public void setTitle(String title) {
+	}
+
+	@Override
+	public boolean needsRenderThread() {
+		return false;
+	}
+}
@@ -0,0 +1,78 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.lge_model.gcs.Component;
+import com.boc_dev.lge_model.generated.components.TransformObject;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+
+// a global transform matrix that belongs to exactly one component. transform resolution writes straight into its
+// values every time the component moves instead of allocating a new matrix. components that just pass their
+// parents transform through share the parents matrix, which is why ownership is tracked rather than assumed.
+// for transforms it also caches the local TRS matrix, so a transform that is only being walked because an
+// ancestor moved costs one multiply instead of a full TRS rebuild
+class OwnedMatrix4f extends Matrix4f {
+
+	private final Component owner;
+
+	private float[] localValues = null;
+	private boolean localChanged = true;
+	private Object lastPosition = null;
+	private Object lastRotation = null;
+	private Object lastScale = null;
+
+	private OwnedMatrix4f(Component owner) {
+		super(new float[16]);
+		this.owner = owner;
+	}
+
+	// gets the matrix the component already owns, or makes one for it the first time round
+	static OwnedMatrix4f of(Component component) {
+		Matrix4f current = component.getGlobalTransform();
+		if (current instanceof OwnedMatrix4f && ((OwnedMatrix4f) current).owner == component) {
+			return (OwnedMatrix4f) current;
+		}
+		return new OwnedMatrix4f(component);
+	}
+
+	// true if the matrix was written by transform resolution for this component, ie it already includes the
+	// components own local transformation
+	static boolean isOwnedBy(Matrix4f matrix, Component component) {
+		return matrix instanceof OwnedMatrix4f && ((OwnedMatrix4f) matrix).owner == component;
+	}
+
+	// called for transforms that had their own position, rotation or scale updated this frame
+	static void markLocalChanged(TransformObject transformObject) {
+		Matrix4f current = transformObject.getGlobalTransform();
+		if (current instanceof OwnedMatrix4f && ((OwnedMatrix4f) current).owner == transformObject) {
+			((OwnedMatrix4f) current).localChanged = true;
+		}
+	}
+
+	// local TRS values of the owning transform, only rebuilt if it has been marked as changed or any of its
+	// position, rotation or scale objects have been swapped out since the last build
+	float[] localTransform(TransformObject transformObject) {
+
+		if (localChanged
+				|| localValues == null
+				|| lastPosition != transformObject.getPosition()
+				|| lastRotation != transformObject.getRotation()
+				|| lastScale != transformObject.getScale()) {
+
+			lastPosition = transformObject.getPosition();
+			lastRotation = transformObject.getRotation();
+			lastScale = transformObject.getScale();
+
+			if (localValues == null) {
+				localValues = new float[16];
+			}
+			// written in place, moving doesn't allocate
+			MatrixMath.transform(
+					transformObject.getPosition(),
+					transformObject.getRotation(),
+					transformObject.getScale(),
+					localValues);
+			localChanged = false;
+		}
+
+		return localValues;
+	}
+}
@@ -0,0 +1,680 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.graphics_library.objects.ProjectionType;
+import com.boc_dev.lge_model.generated.components.CameraObject;
+import com.boc_dev.lge_model.generated.components.GeometryObject;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.UUID;
+
+// answers picking on the cpu instead of with a separate picking pass on the renderer. every pickable geometry is a
+// bounding sphere (its models bounding radius scaled by the pickables global transform) in a bounding volume
+// hierarchy, and a pick is a ray cast through it returning the nearest sphere hit.
+// the layers update thread adds, moves and removes pickables as transforms resolve, and commit() at the end of
+// send() brings the hierarchy up to date. removed pickables leave an empty slot, new ones fill empty slots or go on
+// the end where they are tested one by one, and the tree is refit around whatever moved. once too much has gone on
+// the end (or the tree has been refit for a long time) a fresh tree is built on the update thread, off the lock,
+// and swapped in. picks can come from any thread, they only ever see the hierarchy as it was at the last commit
+public class PickingService {
+
+	private static final int LEAF_SIZE = 4;
+	// refitting keeps the tree valid but not tight, so it is rebuilt from scratch every so often anyway
+	private static final int REBUILD_AFTER_REFITS = 120;
+	// pickables on the end of the tree are cheap to test up to about this many, or an eighth of them all
+	private static final int MIN_OVERFLOW = 32;
+
+	private static final class Pickable {
+		private final UUID id;
+		private final float modelRadius;
+		private final float[] centre = new float[3];
+		private float radius;
+		// its slot in the current hierarchy, -1 until it has one
+		private int primitive = -1;
+		private boolean moved = false;
+		private boolean removed = false;
+
+		private Pickable(UUID id, float modelRadius) {
+			this.id = id;
+			this.modelRadius = modelRadius;
+		}
+	}
+
+	// primitives [0, treePrimitives) are laid out in leaf order under the nodes, the rest are on the end. a
+	// negative radius is an empty slot
+	private static final class Hierarchy {
+		private UUID[] ids = new UUID[0];
+		private float[] spheres = new float[0];
+		private int primitives = 0;
+		private int treePrimitives = 0;
+		// nodes are stored depth first, a nodes left child is straight after it. leaves have a count
+		private float[] nodeBounds = new float[0];
+		private int[] nodeRight = new int[0];
+		private int[] nodeFirst = new int[0];
+		private int[] nodeCount = new int[0];
+		private int nodes = 0;
+
+		private void ensurePrimitives(int capacity) {
+			if (ids.length < capacity) {
+				int grown = Math.max(Math.max(16, capacity), ids.length * 2);
+				ids = Arrays.copyOf(ids, grown);
+				spheres = Arrays.copyOf(spheres, grown * 4);
+			}
+		}
+
+		// a binary tree with leaves of at least one has under twice as many nodes as primitives
+		private void ensureNodes(int primitiveCapacity) {
+			int capacity = primitiveCapacity * 2;
+			if (nodeRight.length < capacity) {
+				int grown = Math.max(Math.max(32, capacity), nodeRight.length * 2);
+				nodeBounds = new float[grown * 6];
+				nodeRight = new int[grown];
+				nodeFirst = new int[grown];
+				nodeCount = new int[grown];
+			}
+		}
+
+		private void write(int slot, Pickable pickable) {
+			ids[slot] = pickable.id;
+			int s = slot * 4;
+			spheres[s] = pickable.centre[0];
+			spheres[s + 1] = pickable.centre[1];
+			spheres[s + 2] = pickable.centre[2];
+			spheres[s + 3] = pickable.radius;
+		}
+
+		private void clear(int slot) {
+			ids[slot] = null;
+			spheres[slot * 4 + 3] = -1;
+		}
+	}
+
+	private final ModelBoundsProvider modelBoundsProvider;
+
+	// update thread only
+	private final IdentityHashMap<GeometryObject, Pickable> pickables = new IdentityHashMap<>();
+	private final ArrayList<Pickable> addedPickables = new ArrayList<>();
+	private final ArrayList<Pickable> removedPickables = new ArrayList<>();
+	private final ArrayList<Pickable> movedPickables = new ArrayList<>();
+	private int[] freeSlots = new int[64];
+	private int freeCount = 0;
+	private int refitsSinceRebuild = 0;
+	// the tree is built into this one and then swapped with the one picks are using
+	private Hierarchy back = new Hierarchy();
+	private final ArrayList<Pickable> building = new ArrayList<>();
+	private float[] buildSpheres = new float[0];
+	private int[] order = new int[0];
+	private UUID cameraId = null;
+	private final float[] stagedCamera = new float[16];
+	private float stagedTanHalfFov = 1;
+	private float stagedAspect = 1;
+	private boolean stagedOrthographic = false;
+	private float stagedHalfWidth = 1;
+	private float stagedHalfHeight = 1;
+	private boolean cameraChanged = false;
+
+	// everything below here is only changed while holding the lock. the update thread is the only writer, so it
+	// can read the front hierarchy without it
+	private final Object lock = new Object();
+	private Hierarchy front = new Hierarchy();
+	private int[] traversal = new int[64];
+	private final float[] camera = new float[16];
+	private float tanHalfFov = 1;
+	private float aspect = 1;
+	private boolean orthographic = false;
+	private float halfWidth = 1;
+	private float halfHeight = 1;
+	private boolean hasCamera = false;
+
+	// readable from any thread
+	private volatile int pickableInstances = 0;
+	private volatile long rebuilds = 0;
+	private volatile long refits = 0;
+	private volatile long picks = 0;
+
+	public PickingService(ModelBoundsProvider modelBoundsProvider) {
+		this.modelBoundsProvider = modelBoundsProvider;
+	}
+
+	void add(GeometryObject geometryObject, float[] globalTransform) {
+		Pickable pickable = new Pickable(geometryObject.getUuid(), modelBoundsProvider.getBoundingRadius(geometryObject.getModelFile()));
+		place(pickable, globalTransform);
+		Pickable previous = pickables.put(geometryObject, pickable);
+		if (previous != null) {
+			removed(previous);
+		}
+		addedPickables.add(pickable);
+	}
+
+	void move(GeometryObject geometryObject, float[] globalTransform) {
+		Pickable pickable = pickables.get(geometryObject);
+		if (pickable == null) {
+			return;
+		}
+		place(pickable, globalTransform);
+		if (!pickable.moved && pickable.primitive >= 0) {
+			pickable.moved = true;
+			movedPickables.add(pickable);
+		}
+	}
+
+	void remove(GeometryObject geometryObject) {
+		Pickable pickable = pickables.remove(geometryObject);
+		if (pickable != null) {
+			removed(pickable);
+		}
+	}
+
+	// picks are made through the first camera created, until it is deleted. the projection is read again every
+	// time, so changes to the fov or size are picked up
+	void cameraMoved(CameraObject cameraObject, Matrix4f globalTransform) {
+		if (cameraId == null) {
+			cameraId = cameraObject.getUuid();
+		}
+		if (cameraId.equals(cameraObject.getUuid())) {
+			float width = cameraObject.getWidth();
+			float height = cameraObject.getHeight();
+			stagedAspect = height > 0 ? width / height : 1;
+			stagedTanHalfFov = (float) Math.tan(Math.toRadians(cameraObject.getFov()) / 2);
+			// the orthographic view is taken to be width by height world units, centred on the cameras axis
+			stagedOrthographic = ProjectionType.valueOf(cameraObject.getCameraProjectionType().toString()) == ProjectionType.ORTHOGRAPHIC;
+			stagedHalfWidth = width / 2;
+			stagedHalfHeight = height / 2;
+			System.arraycopy(globalTransform.getValues(), 0, stagedCamera, 0, 16);
+			cameraChanged = true;
+		}
+	}
+
+	void cameraRemoved(UUID id) {
+		if (id.equals(cameraId)) {
+			cameraId = null;
+			cameraChanged = true;
+		}
+	}
+
+	// makes this frames changes visible to picks. update thread, once a frame
+	void commit() {
+
+		if (addedPickables.isEmpty() && removedPickables.isEmpty() && movedPickables.isEmpty() && !cameraChanged) {
+			return;
+		}
+
+		// anything that can't go in an empty slot goes on the end
+		int overflow = front.primitives - front.treePrimitives + Math.max(0, addedPickables.size() - freeCount - removedPickables.size());
+		// or the tree is mostly empty slots
+		boolean rebuild = overflow > Math.max(MIN_OVERFLOW, pickables.size() / 8)
+				|| freeCount + removedPickables.size() > Math.max(MIN_OVERFLOW, pickables.size())
+				|| (!movedPickables.isEmpty() && refitsSinceRebuild >= REBUILD_AFTER_REFITS);
+
+		if (rebuild) {
+			// built before taking the lock, picks carry on with the old tree meanwhile
+			build();
+			synchronized (lock) {
+				Hierarchy previous = front;
+				front = back;
+				back = previous;
+				commitCamera();
+			}
+			freeCount = 0;
+			refitsSinceRebuild = 0;
+			rebuilds++;
+		} else {
+			synchronized (lock) {
+				commitChanges();
+				commitCamera();
+			}
+		}
+
+		for (Pickable pickable : movedPickables) {
+			pickable.moved = false;
+		}
+		addedPickables.clear();
+		removedPickables.clear();
+		movedPickables.clear();
+		pickableInstances = pickables.size();
+	}
+
+	// nearest pickable hit by the ray, or null if it misses everything. direction does not need to be normalised
+	public UUID pick(float originX, float originY, float originZ, float directionX, float directionY, float directionZ) {
+
+		float length = (float) Math.sqrt(directionX * directionX + directionY * directionY + directionZ * directionZ);
+		if (length == 0) {
+			return null;
+		}
+		float dx = directionX / length;
+		float dy = directionY / length;
+		float dz = directionZ / length;
+
+		synchronized (lock) {
+			picks++;
+			return castRay(originX, originY, originZ, dx, dy, dz);
+		}
+	}
+
+	// picks through the layers camera. x and y are in normalised device coordinates, -1 to 1 left to right and
+	// bottom to top. null if there is no camera or nothing is hit
+	public UUID pickScreen(float x, float y) {
+
+		synchronized (lock) {
+
+			if (!hasCamera) {
+				return null;
+			}
+
+			// orthographic rays all run straight down the view, starting from the point on the cameras plane under x, y
+			if (orthographic) {
+				float ox = x * halfWidth;
+				float oy = y * halfHeight;
+				float dx = -camera[8];
+				float dy = -camera[9];
+				float dz = -camera[10];
+				float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+				if (length == 0) {
+					return null;
+				}
+				picks++;
+				return castRay(
+						camera[12] + ox * camera[0] + oy * camera[4],
+						camera[13] + ox * camera[1] + oy * camera[5],
+						camera[14] + ox * camera[2] + oy * camera[6],
+						dx / length, dy / length, dz / length);
+			}
+
+			// the ray in camera space (looking down -z), then through the rows of the cameras transform into the world
+			float cx = x * tanHalfFov * aspect;
+			float cy = y * tanHalfFov;
+			float dx = cx * camera[0] + cy * camera[4] - camera[8];
+			float dy = cx * camera[1] + cy * camera[5] - camera[9];
+			float dz = cx * camera[2] + cy * camera[6] - camera[10];
+			float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+			if (length == 0) {
+				return null;
+			}
+
+			picks++;
+			return castRay(camera[12], camera[13], camera[14], dx / length, dy / length, dz / length);
+		}
+	}
+
+	public int getPickableInstances() {
+		return pickableInstances;
+	}
+
+	public long getRebuilds() {
+		return rebuilds;
+	}
+
+	public long getRefits() {
+		return refits;
+	}
+
+	public long getPicks() {
+		return picks;
+	}
+
+	private void removed(Pickable pickable) {
+		pickable.removed = true;
+		// never made it into the hierarchy, so nothing to clear out of it
+		if (pickable.primitive >= 0) {
+			removedPickables.add(pickable);
+		}
+	}
+
+	private void place(Pickable pickable, float[] transform) {
+		MatrixMath.translation(transform, pickable.centre);
+		// biggest scale on any axis, so the sphere still holds it however it has been stretched
+		float scaleSquared = 0;
+		for (int row = 0; row < 3; row++) {
+			int r = row * 4;
+			scaleSquared = Math.max(scaleSquared, transform[r] * transform[r] + transform[r + 1] * transform[r + 1] + transform[r + 2] * transform[r + 2]);
+		}
+		pickable.radius = pickable.modelRadius * (float) Math.sqrt(scaleSquared);
+	}
+
+	private void commitCamera() {
+		if (cameraChanged) {
+			hasCamera = cameraId != null;
+			System.arraycopy(stagedCamera, 0, camera, 0, 16);
+			tanHalfFov = stagedTanHalfFov;
+			aspect = stagedAspect;
+			orthographic = stagedOrthographic;
+			halfWidth = stagedHalfWidth;
+			halfHeight = stagedHalfHeight;
+			cameraChanged = false;
+		}
+	}
+
+	// empties the slots of removed pickables, puts new ones in empty slots (or on the end) and refits the tree
+	// around anything in it that changed. holding the lock
+	private void commitChanges() {
+
+		boolean treeChanged = false;
+
+		for (Pickable pickable : removedPickables) {
+			front.clear(pickable.primitive);
+			treeChanged |= pickable.primitive < front.treePrimitives;
+			if (freeCount == freeSlots.length) {
+				freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+			}
+			freeSlots[freeCount++] = pickable.primitive;
+			pickable.primitive = -1;
+		}
+
+		for (Pickable pickable : addedPickables) {
+			if (pickable.removed) {
+				continue;
+			}
+			int slot;
+			if (freeCount > 0) {
+				slot = freeSlots[--freeCount];
+			} else {
+				front.ensurePrimitives(front.primitives + 1);
+				slot = front.primitives++;
+			}
+			pickable.primitive = slot;
+			front.write(slot, pickable);
+			treeChanged |= slot < front.treePrimitives;
+		}
+
+		for (Pickable pickable : movedPickables) {
+			if (pickable.removed || pickable.primitive < 0) {
+				continue;
+			}
+			front.write(pickable.primitive, pickable);
+			treeChanged |= pickable.primitive < front.treePrimitives;
+		}
+
+		if (treeChanged) {
+			refit();
+		}
+	}
+
+	private UUID castRay(float ox, float oy, float oz, float dx, float dy, float dz) {
+
+		Hierarchy hierarchy = front;
+
+		// infinities are fine here, an axis the ray runs along just never limits it
+		float inverseX = 1 / dx;
+		float inverseY = 1 / dy;
+		float inverseZ = 1 / dz;
+
+		UUID nearest = null;
+		float nearestDistance = Float.POSITIVE_INFINITY;
+
+		int size = 0;
+		if (hierarchy.nodes > 0) {
+			traversal[size++] = 0;
+		}
+
+		while (size > 0) {
+
+			int node = traversal[--size];
+
+			if (!hitsBox(hierarchy, node, ox, oy, oz, inverseX, inverseY, inverseZ, nearestDistance)) {
+				continue;
+			}
+
+			if (hierarchy.nodeCount[node] > 0) {
+				int end = hierarchy.nodeFirst[node] + hierarchy.nodeCount[node];
+				for (int i = hierarchy.nodeFirst[node]; i < end; i++) {
+					float distance = hitSphere(hierarchy, i, ox, oy, oz, dx, dy, dz);
+					if (distance < nearestDistance) {
+						nearestDistance = distance;
+						nearest = hierarchy.ids[i];
+					}
+				}
+				continue;
+			}
+
+			if (size + 2 > traversal.length) {
+				traversal = Arrays.copyOf(traversal, traversal.length * 2);
+			}
+			traversal[size++] = hierarchy.nodeRight[node];
+			traversal[size++] = node + 1;
+		}
+
+		// added since the tree was built
+		for (int i = hierarchy.treePrimitives; i < hierarchy.primitives; i++) {
+			float distance = hitSphere(hierarchy, i, ox, oy, oz, dx, dy, dz);
+			if (distance < nearestDistance) {
+				nearestDistance = distance;
+				nearest = hierarchy.ids[i];
+			}
+		}
+
+		return nearest;
+	}
+
+	// slab test, true if the ray enters the box before maxDistance
+	private static boolean hitsBox(Hierarchy hierarchy, int node, float ox, float oy, float oz, float inverseX, float inverseY, float inverseZ, float maxDistance) {
+		float[] nodeBounds = hierarchy.nodeBounds;
+		int b = node * 6;
+		// every slot under it is empty
+		if (nodeBounds[b] > nodeBounds[b + 3]) {
+			return false;
+		}
+		float t1 = (nodeBounds[b] - ox) * inverseX;
+		float t2 = (nodeBounds[b + 3] - ox) * inverseX;
+		float near = Math.min(t1, t2);
+		float far = Math.max(t1, t2);
+		t1 = (nodeBounds[b + 1] - oy) * inverseY;
+		t2 = (nodeBounds[b + 4] - oy) * inverseY;
+		near = Math.max(near, Math.min(t1, t2));
+		far = Math.min(far, Math.max(t1, t2));
+		t1 = (nodeBounds[b + 2] - oz) * inverseZ;
+		t2 = (nodeBounds[b + 5] - oz) * inverseZ;
+		near = Math.max(near, Math.min(t1, t2));
+		far = Math.min(far, Math.max(t1, t2));
+		return far >= Math.max(near, 0) && near <= maxDistance;
+	}
+
+	// distance along the ray to where it enters the sphere, infinity if it misses. starting inside counts as 0
+	private static float hitSphere(Hierarchy hierarchy, int primitive, float ox, float oy, float oz, float dx, float dy, float dz) {
+		float[] spheres = hierarchy.spheres;
+		int s = primitive * 4;
+		float radius = spheres[s + 3];
+		if (radius < 0) {
+			return Float.POSITIVE_INFINITY;
+		}
+		float vx = spheres[s] - ox;
+		float vy = spheres[s + 1] - oy;
+		float vz = spheres[s + 2] - oz;
+		float along = vx * dx + vy * dy + vz * dz;
+		float distanceSquared = vx * vx + vy * vy + vz * vz;
+		float radiusSquared = radius * radius;
+		if (distanceSquared <= radiusSquared) {
+			return 0;
+		}
+		if (along < 0) {
+			return Float.POSITIVE_INFINITY;
+		}
+		float acrossSquared = distanceSquared - along * along;
+		if (acrossSquared > radiusSquared) {
+			return Float.POSITIVE_INFINITY;
+		}
+		return along - (float) Math.sqrt(radiusSquared - acrossSquared);
+	}
+
+	// builds a fresh tree over every pickable into the back hierarchy. update thread, not holding the lock. the
+	// arrays are kept between builds and only grow
+	private void build() {
+
+		building.clear();
+		building.addAll(pickables.values());
+		int count = building.size();
+
+		if (order.length < count) {
+			int capacity = Math.max(count, order.length * 2);
+			buildSpheres = new float[capacity * 4];
+			order = new int[capacity];
+		}
+		for (int i = 0; i < count; i++) {
+			Pickable pickable = building.get(i);
+			buildSpheres[i * 4] = pickable.centre[0];
+			buildSpheres[i * 4 + 1] = pickable.centre[1];
+			buildSpheres[i * 4 + 2] = pickable.centre[2];
+			buildSpheres[i * 4 + 3] = pickable.radius;
+			order[i] = i;
+		}
+
+		Hierarchy hierarchy = back;
+		hierarchy.ensurePrimitives(count);
+		hierarchy.ensureNodes(count);
+		// whatever it held last time round is no longer wanted
+		if (hierarchy.primitives > count) {
+			Arrays.fill(hierarchy.ids, count, hierarchy.primitives, null);
+		}
+		hierarchy.nodes = 0;
+		if (count > 0) {
+			build(hierarchy, 0, count);
+		}
+
+		// primitives are laid out in leaf order, so a leaf is one contiguous run
+		for (int i = 0; i < count; i++) {
+			Pickable pickable = building.get(order[i]);
+			pickable.primitive = i;
+			hierarchy.write(i, pickable);
+		}
+		hierarchy.primitives = count;
+		hierarchy.treePrimitives = count;
+
+		building.clear();
+	}
+
+	// splits the range at the median of its centres along its longest axis. returns the node index
+	private int build(Hierarchy hierarchy, int from, int to) {
+
+		int node = hierarchy.nodes++;
+		int b = node * 6;
+
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+		float centreMinX = Float.POSITIVE_INFINITY, centreMinY = Float.POSITIVE_INFINITY, centreMinZ = Float.POSITIVE_INFINITY;
+		float centreMaxX = Float.NEGATIVE_INFINITY, centreMaxY = Float.NEGATIVE_INFINITY, centreMaxZ = Float.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			int s = order[i] * 4;
+			float x = buildSpheres[s], y = buildSpheres[s + 1], z = buildSpheres[s + 2], r = buildSpheres[s + 3];
+			minX = Math.min(minX, x - r);
+			minY = Math.min(minY, y - r);
+			minZ = Math.min(minZ, z - r);
+			maxX = Math.max(maxX, x + r);
+			maxY = Math.max(maxY, y + r);
+			maxZ = Math.max(maxZ, z + r);
+			centreMinX = Math.min(centreMinX, x);
+			centreMinY = Math.min(centreMinY, y);
+			centreMinZ = Math.min(centreMinZ, z);
+			centreMaxX = Math.max(centreMaxX, x);
+			centreMaxY = Math.max(centreMaxY, y);
+			centreMaxZ = Math.max(centreMaxZ, z);
+		}
+		float[] nodeBounds = hierarchy.nodeBounds;
+		nodeBounds[b] = minX;
+		nodeBounds[b + 1] = minY;
+		nodeBounds[b + 2] = minZ;
+		nodeBounds[b + 3] = maxX;
+		nodeBounds[b + 4] = maxY;
+		nodeBounds[b + 5] = maxZ;
+
+		if (to - from <= LEAF_SIZE) {
+			hierarchy.nodeFirst[node] = from;
+			hierarchy.nodeCount[node] = to - from;
+			hierarchy.nodeRight[node] = -1;
+			return node;
+		}
+
+		float extentX = centreMaxX - centreMinX;
+		float extentY = centreMaxY - centreMinY;
+		float extentZ = centreMaxZ - centreMinZ;
+		int axis = extentX >= extentY && extentX >= extentZ ? 0 : (extentY >= extentZ ? 1 : 2);
+
+		int mid = (from + to) >>> 1;
+		select(from, to - 1, mid, axis);
+
+		hierarchy.nodeCount[node] = 0;
+		build(hierarchy, from, mid);
+		hierarchy.nodeRight[node] = build(hierarchy, mid, to);
+		return node;
+	}
+
+	// quickselect over the index, so everything before k is no further along the axis than k
+	private void select(int left, int right, int k, int axis) {
+		while (left < right) {
+			float pivot = buildSpheres[order[(left + right) >>> 1] * 4 + axis];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (buildSpheres[order[i] * 4 + axis] < pivot) {
+					i++;
+				}
+				while (buildSpheres[order[j] * 4 + axis] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int swap = order[i];
+					order[i] = order[j];
+					order[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	// children come after their parent, so walking the nodes backwards refits every child before its parent.
+	// holding the lock
+	private void refit() {
+
+		Hierarchy hierarchy = front;
+		float[] nodeBounds = hierarchy.nodeBounds;
+		float[] spheres = hierarchy.spheres;
+
+		for (int node = hierarchy.nodes - 1; node >= 0; node--) {
+
+			int b = node * 6;
+
+			if (hierarchy.nodeCount[node] > 0) {
+				float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+				float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+				int end = hierarchy.nodeFirst[node] + hierarchy.nodeCount[node];
+				for (int i = hierarchy.nodeFirst[node]; i < end; i++) {
+					int s = i * 4;
+					float r = spheres[s + 3];
+					if (r < 0) {
+						continue;
+					}
+					minX = Math.min(minX, spheres[s] - r);
+					minY = Math.min(minY, spheres[s + 1] - r);
+					minZ = Math.min(minZ, spheres[s + 2] - r);
+					maxX = Math.max(maxX, spheres[s] + r);
+					maxY = Math.max(maxY, spheres[s + 1] + r);
+					maxZ = Math.max(maxZ, spheres[s + 2] + r);
+				}
+				nodeBounds[b] = minX;
+				nodeBounds[b + 1] = minY;
+				nodeBounds[b + 2] = minZ;
+				nodeBounds[b + 3] = maxX;
+				nodeBounds[b + 4] = maxY;
+				nodeBounds[b + 5] = maxZ;
+			} else {
+				int left = (node + 1) * 6;
+				int right = hierarchy.nodeRight[node] * 6;
+				for (int axis = 0; axis < 3; axis++) {
+					nodeBounds[b + axis] = Math.min(nodeBounds[left + axis], nodeBounds[right + axis]);
+					nodeBounds[b + 3 + axis] = Math.max(nodeBounds[left + 3 + axis], nodeBounds[right + 3 + axis]);
+				}
+			}
+		}
+
+		refitsSinceRebuild++;
+		refits++;
+	}
+}
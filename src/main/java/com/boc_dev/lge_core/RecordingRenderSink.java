@@ -0,0 +1,77 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.busses.GameBus;
+import com.boc_dev.event_bus.interfaces.Event;
+
+import java.util.ArrayList;
+
+// keeps every event it is given, split into frames, so a run can be checked afterwards. only meant for short runs,
+// nothing is ever thrown away until clear is called
+public class RecordingRenderSink implements RenderSink {
+
+	private final ArrayList<ArrayList<Event<?>>> frames = new ArrayList<>();
+	private ArrayList<Event<?>> currentFrame = new ArrayList<>();
+
+	@Override
+	public void attach(GameBus renderGameBus, ArrayList<SceneLayer> sceneLayers) {
+	}
+
+	@Override
+	public void init() {
+	}
+
+	@Override
+	public synchronized void accept(Event<?> event) {
+		currentFrame.add(event);
+	}
+
+	@Override
+	public synchronized void renderFrame() {
+		frames.add(currentFrame);
+		currentFrame = new ArrayList<>();
+	}
+
+	@Override
+	public boolean shouldClose() {
+		return false;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public void setTitle(String title) {
+	}
+
+	@Override
+	public boolean needsRenderThread() {
+		return false;
+	}
+
+	// copies, so they can be looked at while the loop is still running
+	public synchronized ArrayList<ArrayList<Event<?>>> getFrames() {
+		ArrayList<ArrayList<Event<?>>> copy = new ArrayList<>(frames.size());
+		for (ArrayList<Event<?>> frame : frames) {
+			copy.add(new ArrayList<>(frame));
+		}
+		return copy;
+	}
+
+	public synchronized ArrayList<Event<?>> getEvents() {
+		ArrayList<Event<?>> events = new ArrayList<>();
+		for (ArrayList<Event<?>> frame : frames) {
+			events.addAll(frame);
+		}
+		return events;
+	}
+
+	public synchronized int getFrameCount() {
+		return frames.size();
+	}
+
+	public synchronized void clear() {
+		frames.clear();
+		currentFrame.clear();
+	}
+}
@@ -0,0 +1,35 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.busses.GameBus;
+import com.boc_dev.event_bus.interfaces.Event;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+
+// where finished frames end up. the normal one is a window on its own render thread, the headless ones let the
+// whole update pipeline run on a box with no display or gpu
+public interface RenderSink {
+
+	// called once by the game loop constructor, before anything has been started
+	void attach(GameBus renderGameBus, ArrayList<SceneLayer> sceneLayers);
+
+	// called once on whichever thread is going to be rendering
+	void init() throws IOException, URISyntaxException;
+
+	// a render event for the frame being presented
+	void accept(Event<?> event);
+
+	// every event for the frame has been accepted
+	void renderFrame();
+
+	boolean shouldClose();
+
+	void close();
+
+	void setTitle(String title);
+
+	// false means frames are presented on the update thread straight after each tick
+	boolean needsRenderThread();
+
+}
@@ -1,6 +1,5 @@
 package com.boc_dev.lge_core;
 
-import com.boc_dev.event_bus.busses.GameBus;
 import com.boc_dev.graphics_library.communication.*;
 import com.boc_dev.graphics_library.objects.lighting.*;
 import com.boc_dev.graphics_library.objects.text.TextInstance;
@@ -17,55 +16,127 @@ import com.boc_dev.graphics_library.objects.render_scene.InstanceObject;
 import com.boc_dev.maths.objects.matrix.Matrix4f;
 import com.boc_dev.maths.objects.vector.Vec3f;
 
+import com.boc_dev.event_bus.interfaces.Event;
+
 import java.io.IOException;
 import java.net.URL;
 import java.util.*;
 
 public class RenderVisitorImpl implements RenderVisitor {
 
-	private final GameBus gameBus;
+	private final FrameEventWriter frameEventWriter;
 	private final TreeUtils treeUtils;
 	private MaterialBuilder materialBuilder;
+	private final MaterialCache materialCache;
+	private final TextureRegistry textureRegistry;
+	private final HeightMapCache heightMapCache;
+	// a visitor with a registry and cache all to itself sends its own releases and evictions, shared ones are
+	// flushed by their owner
+	private final boolean flushSharedResources;
+
 
+	private final BatchKeys batchKeys = new BatchKeys();
+	private final SentTransformFilter sentTransformFilter = new SentTransformFilter();
 
-	private final HashMap<String, HashSet<GeometryObject>> geometryCreateEventsMap = new HashMap<>();
-	private final HashMap<String, HashSet<GeometryObject>> pickingCreateEventsMap = new HashMap<>();
+	private final HashMap<BatchKey, HashSet<GeometryObject>> geometryCreateEventsMap = new HashMap<>();
+	private final HashMap<BatchKey, HashSet<GeometryObject>> pickingCreateEventsMap = new HashMap<>();
 	private final HashMap<String, HashSet<TerrainChunkObject>> terrainCreateEventsMap = new HashMap<>();
 	private final HashMap<String, HashSet<MeshObject>> meshCreateEventsMap = new HashMap<>();
-	private final HashMap<String, HashSet<InstanceObject>> geometryUpdateEventsMap = new HashMap<>();
-	private final HashMap<String, HashSet<InstanceObject>> pickingUpdateEventsMap = new HashMap<>();
-	private final HashMap<String, HashSet<UUID>> geometryDeleteEventsMap = new HashMap<>();
-	private final HashMap<String, HashSet<UUID>> pickingDeleteEventsMap = new HashMap<>();
-	private volatile String layerName = "DEFAULT";
+	// the grid each terrain chunk last loaded with, so streaming back in is just a cache lookup
+	private final IdentityHashMap<TerrainChunkObject, HeightMapSnapshot> heightMapSnapshots = new IdentityHashMap<>();
+	private final HashMap<BatchKey, InstanceBatch> geometryUpdateBatches = new HashMap<>();
+	private final HashMap<BatchKey, InstanceBatch> pickingUpdateBatches = new HashMap<>();
+	private final HashMap<BatchKey, HashSet<UUID>> geometryDeleteEventsMap = new HashMap<>();
+	private final HashMap<BatchKey, HashSet<UUID>> pickingDeleteEventsMap = new HashMap<>();
+	private final ArrayList<GeometryObject> deletedGeometry = new ArrayList<>();
+	// materials that need (re)building this frame, built once each at send however many times they were touched
+	private final LinkedHashSet<MaterialObject> dirtyMaterials = new LinkedHashSet<>();
+	private volatile long coalescedMaterialBuilds = 0;
+	// null sends every chunk as soon as it is created
+	private volatile TerrainStreamer terrainStreamer = null;
+	// null sends every geometry instance whether a camera can see it or not
+	private volatile VisibilityCuller visibilityCuller = null;
+	// null leaves picking to the renderers picking pass
+	private volatile PickingService pickingService = null;
+	private volatile boolean pickingStreams = true;
+	private final String layerName;
+	private volatile boolean instanceStreaming = false;
+	private volatile boolean instanceInterpolation = false;
+	private final float[] previousTransform = new float[16];
+	private volatile long coalescedInstanceUpdates = 0;
+
+
+	public RenderVisitorImpl(FrameEventWriter frameEventWriter, String layerName) {
+		this(frameEventWriter, layerName, new TextureRegistry(), new HeightMapCache(), true);
+	}
 
+	// textureRegistry and heightMapCache are shared with other layers, releases and evictions are left for whoever
+	// owns them to send
+	public RenderVisitorImpl(FrameEventWriter frameEventWriter, String layerName, TextureRegistry textureRegistry, HeightMapCache heightMapCache) {
+		this(frameEventWriter, layerName, textureRegistry, heightMapCache, false);
+	}
 
-	public RenderVisitorImpl(GameBus gameBus) {
-		this.gameBus = gameBus;
+	private RenderVisitorImpl(FrameEventWriter frameEventWriter,
+	                          String layerName,
+	                          TextureRegistry textureRegistry,
+	                          HeightMapCache heightMapCache,
+	                          boolean flushSharedResources) {
+		this.frameEventWriter = frameEventWriter;
+		this.layerName = layerName;
+		this.textureRegistry = textureRegistry;
+		this.heightMapCache = heightMapCache;
+		this.flushSharedResources = flushSharedResources;
 		this.treeUtils = new TreeUtils();
 		this.materialBuilder = new MaterialBuilder();
+		this.materialCache = new MaterialCache(materialBuilder);
 	}
 
 	public void send() {
 
+		// materials first, geometry created below may be using them
+		for (MaterialObject materialObject : dirtyMaterials) {
+			frameEventWriter.write(new MaterialCreateEvent(
+					materialObject.getUuid(),
+					materialCache.get(materialObject),
+					layerName
+			));
+		}
+
+		dirtyMaterials.clear();
+
+		// terrain chunks that have come into range start loading, ones that have gone out of range are taken out
+		TerrainStreamer streamer = terrainStreamer;
+		if (streamer != null) {
+			streamer.update(this::loadTerrainChunk, this::unloadTerrainChunk);
+		}
+
+		// instances that have come into view are queued to be created, ones that have gone out of view are queued to
+		// be removed (and dropped from this frames updates)
+		VisibilityCuller culler = visibilityCuller;
+		if (culler != null) {
+			culler.update(layerName, this::revealGeometry, this::hideGeometry);
+		}
+
 		// do delete first so it only deletes objects already in the scene
-		for (Map.Entry<String, HashSet<UUID>> stringArrayListEntry : geometryDeleteEventsMap.entrySet()) {
+		for (Map.Entry<BatchKey, HashSet<UUID>> stringArrayListEntry : geometryDeleteEventsMap.entrySet()) {
 
-			gameBus.dispatch(new GeometryRemoveEvent(
+			frameEventWriter.write(new GeometryRemoveEvent(
 					stringArrayListEntry.getValue(),
-					stringArrayListEntry.getKey(),
+					stringArrayListEntry.getKey().getId(),
 					layerName
 			));
+			frameEventWriter.writeRemoved(stringArrayListEntry.getValue());
 
 		}
 
 		geometryDeleteEventsMap.clear();
 
 		// do delete first so it only deletes objects already in the scene
-		for (Map.Entry<String, HashSet<UUID>> stringArrayListEntry : pickingDeleteEventsMap.entrySet()) {
+		for (Map.Entry<BatchKey, HashSet<UUID>> stringArrayListEntry : pickingDeleteEventsMap.entrySet()) {
 
-			gameBus.dispatch(new PickingRemoveEvent(
+			frameEventWriter.write(new PickingRemoveEvent(
 					stringArrayListEntry.getValue(),
-					stringArrayListEntry.getKey(),
+					stringArrayListEntry.getKey().getId(),
 					layerName
 			));
 
@@ -73,7 +144,7 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 		pickingDeleteEventsMap.clear();
 
-		for (Map.Entry<String, HashSet<GeometryObject>> stringGeometryObjectEntry : geometryCreateEventsMap.entrySet()) {
+		for (Map.Entry<BatchKey, HashSet<GeometryObject>> stringGeometryObjectEntry : geometryCreateEventsMap.entrySet()) {
 
 			if (!stringGeometryObjectEntry.getValue().isEmpty()) {
 
@@ -85,11 +156,14 @@ public class RenderVisitorImpl implements RenderVisitor {
 				for (GeometryObject geometryObject : stringGeometryObjectEntry.getValue()) {
 					material = geometryObject.getMaterial();
 					modelFile = geometryObject.getModelFile();
-					instanceObjects.add(new InstanceObject(geometryObject.getUuid(), geometryObject.getLocalTransformation().multiply(geometryObject.getGlobalTransform()).transpose()));
+					Matrix4f instanceTransform = geometryInstanceTransform(geometryObject);
+					// the create carries a transform too, so later identical updates can be skipped
+					sentTransformFilter.record(geometryObject.getUuid(), instanceTransform.getValues());
+					instanceObjects.add(new InstanceObject(geometryObject.getUuid(), instanceTransform.transpose()));
 
 				}
 
-				gameBus.dispatch(new GeometryCreateEvent(
+				frameEventWriter.write(new GeometryCreateEvent(
 						instanceObjects,
 						new Model(modelFile, material),
 						layerName
@@ -100,7 +174,7 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 		geometryCreateEventsMap.clear();
 
-		for (Map.Entry<String, HashSet<GeometryObject>> stringGeometryObjectEntry : pickingCreateEventsMap.entrySet()) {
+		for (Map.Entry<BatchKey, HashSet<GeometryObject>> stringGeometryObjectEntry : pickingCreateEventsMap.entrySet()) {
 
 			if (!stringGeometryObjectEntry.getValue().isEmpty()) {
 
@@ -110,11 +184,11 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 				for (GeometryObject geometryObject : stringGeometryObjectEntry.getValue()) {
 					modelFile = geometryObject.getModelFile();
-					instanceObjects.add(new InstanceObject(geometryObject.getUuid(), geometryObject.getLocalTransformation().multiply(geometryObject.getGlobalTransform()).transpose()));
+					instanceObjects.add(new InstanceObject(geometryObject.getUuid(), geometryInstanceTransform(geometryObject).transpose()));
 
 				}
 
-				gameBus.dispatch(new PickingCreateEvent(
+				frameEventWriter.write(new PickingCreateEvent(
 						instanceObjects,
 						modelFile,
 						layerName
@@ -139,9 +213,9 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 				}
 
-				gameBus.dispatch(new GeometryCreateEvent(
+				frameEventWriter.write(new GeometryCreateEvent(
 						instanceObjects,
-						new Model(anyTerrainChunkObject.getName(), anyTerrainChunkObject.getMaterialID()),
+						new Model(stringHashSetEntry.getKey(), anyTerrainChunkObject.getMaterialID()),
 						layerName
 				));
 
@@ -164,7 +238,7 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 				}
 
-				gameBus.dispatch(new GeometryCreateEvent(
+				frameEventWriter.write(new GeometryCreateEvent(
 						instanceObjects,
 						new Model(anyMesh.getName(), anyMesh.getMaterialID()),
 						layerName
@@ -175,29 +249,90 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 		meshCreateEventsMap.clear();
 
-		for (Map.Entry<String, HashSet<InstanceObject>> stringArrayListEntry : geometryUpdateEventsMap.entrySet()) {
+		boolean streaming = instanceStreaming;
 
-			gameBus.dispatch(new GeometryUpdateEvent(
-					stringArrayListEntry.getKey(),
-					stringArrayListEntry.getValue(),
-					layerName
-			));
+		for (InstanceBatch instanceBatch : geometryUpdateBatches.values()) {
+
+			if (instanceBatch.getCount() == 0) {
+				continue;
+			}
+
+			coalescedInstanceUpdates += instanceBatch.getDuplicateWrites();
 
+			// stream mode hands the batch buffers over to be copied into the frame, no per instance objects at all
+			if (streaming) {
+				frameEventWriter.writeStreamed(instanceBatch, layerName);
+			} else if (instanceInterpolation) {
+				// the render thread blends from the previous transforms to these ones itself
+				frameEventWriter.writeInterpolated(instanceBatch, layerName);
+			} else {
+				frameEventWriter.write(new GeometryUpdateEvent(
+						instanceBatch.getBatchKey().getId(),
+						toInstanceObjects(instanceBatch),
+						layerName
+				));
+			}
+
+			// keep the batch and its buffers for next frame
+			instanceBatch.clear();
 		}
 
-		geometryUpdateEventsMap.clear();
+		for (InstanceBatch instanceBatch : pickingUpdateBatches.values()) {
 
-		for (Map.Entry<String, HashSet<InstanceObject>> stringArrayListEntry : pickingUpdateEventsMap.entrySet()) {
+			if (instanceBatch.getCount() == 0) {
+				continue;
+			}
 
-			gameBus.dispatch(new PickingUpdateEvent(
-					stringArrayListEntry.getKey(),
-					stringArrayListEntry.getValue(),
+			coalescedInstanceUpdates += instanceBatch.getDuplicateWrites();
+
+			frameEventWriter.write(new PickingUpdateEvent(
+					instanceBatch.getBatchKey().getId(),
+					toInstanceObjects(instanceBatch),
 					layerName
 			));
 
+			instanceBatch.clear();
+		}
+
+		for (GeometryObject geometryObject : deletedGeometry) {
+			batchKeys.release(geometryObject);
 		}
+		deletedGeometry.clear();
 
-		pickingUpdateEventsMap.clear();
+		// this frames pickable moves go live for picks
+		PickingService picking = pickingService;
+		if (picking != null) {
+			picking.commit();
+		}
+
+		if (flushSharedResources) {
+			textureRegistry.flushReleases(frameEventWriter::write);
+			heightMapCache.flushEvictions(frameEventWriter::write);
+		}
+	}
+
+	// geometry that has been through transform resolution already has its local transformation baked into the
+	// global transform it owns. geometry that has only been through resolveGlobalTransforms has its parents
+	private Matrix4f geometryInstanceTransform(GeometryObject geometryObject) {
+		Matrix4f globalTransform = geometryObject.getGlobalTransform();
+		if (OwnedMatrix4f.isOwnedBy(globalTransform, geometryObject)) {
+			return globalTransform;
+		}
+		return geometryObject.getLocalTransformation().multiply(globalTransform);
+	}
+
+	// one InstanceObject per instance in the batch. the batch is already coalesced so every id is unique
+	private HashSet<InstanceObject> toInstanceObjects(InstanceBatch instanceBatch) {
+
+		HashSet<InstanceObject> instances = new HashSet<>();
+
+		for (int i = 0; i < instanceBatch.getCount(); i++) {
+			float[] values = new float[16];
+			instanceBatch.copyTransform(i, values);
+			instances.add(new InstanceObject(instanceBatch.getIds()[i], new Matrix4f(values)));
+		}
+
+		return instances;
 	}
 
 	private void resolveTransforms(Component component) {
@@ -227,35 +362,62 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 		resolveTransforms(geometryObject);
 
-		String modelStringId = geometryObject.getModelFile() + geometryObject.getMaterial().toString();
+		VisibilityCuller culler = visibilityCuller;
+		if (culler != null) {
+			culler.add(geometryObject, geometryInstanceTransform(geometryObject).getValues());
+			// created at send if a camera can see it
+			if (culler.isCullingInstances()) {
+				return;
+			}
+		}
 
-		if (geometryCreateEventsMap.containsKey(modelStringId)) {
-			geometryCreateEventsMap.get(modelStringId).add(geometryObject);
-		} else {
-			HashSet<GeometryObject> instances = new HashSet<>();
-			instances.add(geometryObject);
-			geometryCreateEventsMap.put(modelStringId, instances);
+		queueGeometryCreate(geometryObject);
+	}
+
+	private void queueGeometryCreate(GeometryObject geometryObject) {
+
+		BatchKey batchKey = batchKeys.forGeometry(geometryObject);
+
+		HashSet<GeometryObject> instances = geometryCreateEventsMap.get(batchKey);
+		if (instances == null) {
+			instances = new HashSet<>();
+			geometryCreateEventsMap.put(batchKey, instances);
 		}
+		instances.add(geometryObject);
 
 	}
 
 	public void sendCreateUpdate(MaterialObject materialObject) {
 
-		gameBus.dispatch(new MaterialCreateEvent(
-				materialObject.getUuid(),
-				materialBuilder.build(materialObject),
-				layerName
-		));
+		// built at send, so a material created alongside its texture and normal map is only built the once
+		if (!dirtyMaterials.add(materialObject)) {
+			coalescedMaterialBuilds++;
+		}
 	}
 
 	public void sendCreateUpdate(CameraObject cameraObject) {
 
 		resolveTransforms(cameraObject);
 
+		TerrainStreamer streamer = terrainStreamer;
+		if (streamer != null) {
+			streamer.cameraMoved(cameraObject.getUuid(), cameraObject.getGlobalTransform());
+		}
+
+		VisibilityCuller culler = visibilityCuller;
+		if (culler != null) {
+			culler.cameraCreated(cameraObject, cameraObject.getGlobalTransform());
+		}
+
+		PickingService picking = pickingService;
+		if (picking != null) {
+			picking.cameraMoved(cameraObject, cameraObject.getGlobalTransform());
+		}
+
 		// at this point all transforms for current object should be resolved...
 
-		gameBus.dispatch(new CameraCreateEvent(
-				new InstanceObject(cameraObject.getUuid(), cameraObject.getGlobalTransform()),
+		frameEventWriter.write(new CameraCreateEvent(
+				new InstanceObject(cameraObject.getUuid(), MatrixMath.copyOf(cameraObject.getGlobalTransform())),
 				new Camera(
 						cameraObject.getUuid(),
 						cameraObject.getName(),
@@ -312,8 +474,8 @@ public class RenderVisitorImpl implements RenderVisitor {
 		}
 
 		// at this point all transforms for current object should be resolved...
-		gameBus.dispatch(new LightCreateEvent(
-				new InstanceObject(lightObject.getUuid(), lightObject.getGlobalTransform()),
+		frameEventWriter.write(new LightCreateEvent(
+				new InstanceObject(lightObject.getUuid(), MatrixMath.copyOf(lightObject.getGlobalTransform())),
 				light,
 				layerName
 		));
@@ -326,11 +488,10 @@ public class RenderVisitorImpl implements RenderVisitor {
 		Model model;
 		Material material = new BasicMaterial(materialUUID, skyBoxObject.getTexture());
 
-		gameBus.dispatch(new TextureCreateEvent(
-				skyBoxObject.getTexture()
-		));
+		// only loaded if nothing else is using it already
+		textureRegistry.acquire(skyBoxObject, skyBoxObject.getTexture(), frameEventWriter);
 
-		gameBus.dispatch(new MaterialCreateEvent(
+		frameEventWriter.write(new MaterialCreateEvent(
 				materialUUID,
 				material,
 				layerName
@@ -347,7 +508,7 @@ public class RenderVisitorImpl implements RenderVisitor {
 				break;
 		}
 
-		gameBus.dispatch(new SkyboxCreateEvent(
+		frameEventWriter.write(new SkyboxCreateEvent(
 				new InstanceObject(skyBoxObject.getUuid(), Matrix4f.Scale(Vec3f.ONE.scale(skyBoxObject.getDistance()))),
 				model,
 				layerName
@@ -359,7 +520,7 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 		resolveTransforms(textObject);
 
-		gameBus.dispatch(new TextCreateEvent(
+		frameEventWriter.write(new TextCreateEvent(
 				new TextInstance(textObject.getUuid(), textObject.getText(), textObject.getGlobalTransform().transpose()),
 				layerName,
 				textObject.getFontName(),
@@ -376,10 +537,8 @@ public class RenderVisitorImpl implements RenderVisitor {
 			sendCreateUpdate((MaterialObject) textureObject.getParent());
 		}
 
-		// now sent texture to runtime texture manager
-		gameBus.dispatch(new TextureCreateEvent(
-				textureObject.getPath()
-		));
+		// now sent texture to runtime texture manager, if it isn't there already
+		textureRegistry.acquire(textureObject, textureObject.getPath(), frameEventWriter);
 
 	}
 
@@ -391,28 +550,50 @@ public class RenderVisitorImpl implements RenderVisitor {
 			sendCreateUpdate((MaterialObject) normalMapObject.getParent());
 		}
 
-		// now sent texture to runtime texture manager
-		gameBus.dispatch(new TextureCreateEvent(
-				normalMapObject.getPath()
-		));
+		// now sent texture to runtime texture manager, if it isn't there already
+		textureRegistry.acquire(normalMapObject, normalMapObject.getPath(), frameEventWriter);
 	}
 
 	@Override
 	public void sendCreateUpdate(TerrainChunkObject terrainChunkObject) {
 
-		gameBus.dispatch(new HeightMapMeshCreateEvent(
-				terrainChunkObject.getName(),
-				terrainChunkObject.getGrid(),
-				terrainChunkObject.getCellSpace()
-		));
+		TerrainStreamer streamer = terrainStreamer;
+		if (streamer != null) {
+			// loaded at send once the camera is near enough
+			streamer.add(terrainChunkObject);
+		} else {
+			loadTerrainChunk(terrainChunkObject);
+		}
+	}
 
+	private void loadTerrainChunk(TerrainChunkObject terrainChunkObject) {
 
-		if (terrainCreateEventsMap.containsKey(terrainChunkObject.getName())) {
-			terrainCreateEventsMap.get(terrainChunkObject.getName()).add(terrainChunkObject);
+		// the cache keeps the grid to compare against, so it gets a snapshot systems can't change afterwards. a
+		// chunk coming back with the same grid reuses the one it had, skipping the copy and the hash
+		float[][] source = terrainChunkObject.getGrid();
+		float cellSpace = terrainChunkObject.getCellSpace();
+		HeightMapSnapshot snapshot = heightMapSnapshots.get(terrainChunkObject);
+		if (snapshot == null || !snapshot.isOf(source, cellSpace)) {
+			snapshot = HeightMapSnapshot.of(source, cellSpace);
+			heightMapSnapshots.put(terrainChunkObject, snapshot);
+		}
+
+		// sends the mesh create if the renderer hasn't got this grid yet
+		String meshName = heightMapCache.acquire(
+				terrainChunkObject,
+				terrainChunkObject.getName(),
+				snapshot.getGrid(),
+				snapshot.getCellSpace(),
+				snapshot.getContentHash(),
+				snapshot.getBytes(),
+				frameEventWriter);
+
+		if (terrainCreateEventsMap.containsKey(meshName)) {
+			terrainCreateEventsMap.get(meshName).add(terrainChunkObject);
 		} else {
 			HashSet<TerrainChunkObject> instances = new HashSet<>();
 			instances.add(terrainChunkObject);
-			terrainCreateEventsMap.put(terrainChunkObject.getName(), instances);
+			terrainCreateEventsMap.put(meshName, instances);
 		}
 
 	}
@@ -422,7 +603,7 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 		resolveTransforms(waterChunkObject);
 
-		gameBus.dispatch(new WaterCreateEvent(
+		frameEventWriter.write(new WaterCreateEvent(
 				waterChunkObject.getUuid(),
 				waterChunkObject.getName(),
 				waterChunkObject.getGrid(),
@@ -442,15 +623,23 @@ public class RenderVisitorImpl implements RenderVisitor {
 		if (pickableObject.getParent() != null && pickableObject.getParent().getComponentType().equals(ComponentType.GEOMETRY)) {
 			GeometryObject geometryObject = (GeometryObject) pickableObject.getParent();
 
-			String modelStringId = geometryObject.getModelFile() + geometryObject.getMaterial().toString();
+			PickingService picking = pickingService;
+			if (picking != null) {
+				picking.add(geometryObject, geometryInstanceTransform(geometryObject).getValues());
+			}
 
-			if (pickingCreateEventsMap.containsKey(modelStringId)) {
-				pickingCreateEventsMap.get(modelStringId).add(geometryObject);
-			} else {
-				HashSet<GeometryObject> instances = new HashSet<>();
-				instances.add(geometryObject);
-				pickingCreateEventsMap.put(modelStringId, instances);
+			if (!pickingStreams) {
+				return;
+			}
+
+			BatchKey batchKey = batchKeys.forGeometry(geometryObject);
+
+			HashSet<GeometryObject> instances = pickingCreateEventsMap.get(batchKey);
+			if (instances == null) {
+				instances = new HashSet<>();
+				pickingCreateEventsMap.put(batchKey, instances);
 			}
+			instances.add(geometryObject);
 		}
 
 	}
@@ -458,7 +647,7 @@ public class RenderVisitorImpl implements RenderVisitor {
 	@Override
 	public void sendCreateUpdate(MeshObject meshObject) {
 
-		gameBus.dispatch(new ChunkMeshCreateEvent(
+		frameEventWriter.write(new ChunkMeshCreateEvent(
 				meshObject.getName(),
 				meshObject.getVertexPositions()
 		));
@@ -476,16 +665,38 @@ public class RenderVisitorImpl implements RenderVisitor {
 	@Override
 	public void sendInstanceUpdate(GeometryObject geometryObject, Matrix4f newTransform) {
 
-		String modelStringId = geometryObject.getModelFile() + geometryObject.getMaterial().toString();
+		VisibilityCuller culler = visibilityCuller;
+		if (culler != null) {
+			culler.move(geometryObject, newTransform.getValues());
+			// culled, the renderer has nothing to move
+			if (!culler.isOnRenderer(geometryObject)) {
+				return;
+			}
+		}
 
-		if (geometryUpdateEventsMap.containsKey(modelStringId)) {
-			geometryUpdateEventsMap.get(modelStringId).add(new InstanceObject(geometryObject.getUuid(), newTransform.transpose()));
-		} else {
-			HashSet<InstanceObject> instances = new HashSet<>();
-			instances.add(new InstanceObject(geometryObject.getUuid(), newTransform.transpose()));
-			geometryUpdateEventsMap.put(modelStringId, instances);
+		// where it was last sent from is where the render thread interpolates from. has to be read before the
+		// filter records the new one
+		float[] previous = null;
+		if (instanceInterpolation) {
+			previous = sentTransformFilter.copyLastSent(geometryObject.getUuid(), previousTransform) ? previousTransform : newTransform.getValues();
 		}
 
+		// nothing to send if it ended up exactly where (or close enough to where) the renderer already has it
+		if (!sentTransformFilter.shouldSend(geometryObject.getUuid(), newTransform.getValues())) {
+			return;
+		}
+
+		// resolved once per geometry, no string building on the per frame path
+		BatchKey batchKey = batchKeys.forGeometry(geometryObject);
+
+		InstanceBatch instanceBatch = geometryUpdateBatches.get(batchKey);
+		if (instanceBatch == null) {
+			instanceBatch = new InstanceBatch(batchKey, 64);
+			geometryUpdateBatches.put(batchKey, instanceBatch);
+		}
+		// written straight into the batch buffer already transposed
+		instanceBatch.add(geometryObject.getUuid(), newTransform.getValues(), previous);
+
 	}
 
 	@Override
@@ -494,19 +705,32 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 	@Override
 	public void sendInstanceUpdate(CameraObject cameraObject, Matrix4f newTransform) {
-		gameBus.dispatch(new CameraUpdateEvent(
+		TerrainStreamer streamer = terrainStreamer;
+		if (streamer != null) {
+			streamer.cameraMoved(cameraObject.getUuid(), newTransform);
+		}
+		VisibilityCuller culler = visibilityCuller;
+		if (culler != null) {
+			culler.cameraMoved(cameraObject.getUuid(), newTransform);
+		}
+		PickingService picking = pickingService;
+		if (picking != null) {
+			picking.cameraMoved(cameraObject, newTransform);
+		}
+		// global transforms are written in place every tick, so the render thread gets its own copy
+		frameEventWriter.write(new CameraUpdateEvent(
 				cameraObject.getName(),
 				layerName,
-				newTransform
+				MatrixMath.copyOf(newTransform)
 		));
 	}
 
 	@Override
 	public void sendInstanceUpdate(LightObject lightObject, Matrix4f newTransform) {
-		gameBus.dispatch(new LightUpdateEvent(
+		frameEventWriter.write(new LightUpdateEvent(
 				lightObject.getUuid(),
 				layerName,
-				newTransform
+				MatrixMath.copyOf(newTransform)
 		));
 	}
 
@@ -518,7 +742,7 @@ public class RenderVisitorImpl implements RenderVisitor {
 	@Override
 	public void sendInstanceUpdate(TextObject textObject, Matrix4f newTransform) {
 
-		gameBus.dispatch(new TextUpdateEvent(
+		frameEventWriter.write(new TextUpdateEvent(
 				textObject.getFontName(),
 				textObject.getUuid(),
 				layerName,
@@ -552,15 +776,24 @@ public class RenderVisitorImpl implements RenderVisitor {
 		// get parent geometry
 		if (pickableObject.getParent() != null && pickableObject.getParent().getComponentType().equals(ComponentType.GEOMETRY)) {
 			GeometryObject geometryObject = (GeometryObject) pickableObject.getParent();
-			String modelStringId = geometryObject.getModelFile();
 
-			if (pickingUpdateEventsMap.containsKey(modelStringId)) {
-				pickingUpdateEventsMap.get(modelStringId).add(new InstanceObject(geometryObject.getUuid(), newTransform.transpose()));
-			} else {
-				HashSet<InstanceObject> instances = new HashSet<>();
-				instances.add(new InstanceObject(geometryObject.getUuid(), newTransform.transpose()));
-				pickingUpdateEventsMap.put(modelStringId, instances);
+			PickingService picking = pickingService;
+			if (picking != null) {
+				picking.move(geometryObject, newTransform.getValues());
+			}
+
+			if (!pickingStreams) {
+				return;
 			}
+
+			BatchKey batchKey = batchKeys.forGeometry(geometryObject).getModelKey();
+
+			InstanceBatch instanceBatch = pickingUpdateBatches.get(batchKey);
+			if (instanceBatch == null) {
+				instanceBatch = new InstanceBatch(batchKey, 64);
+				pickingUpdateBatches.put(batchKey, instanceBatch);
+			}
+			instanceBatch.add(geometryObject.getUuid(), newTransform.getValues());
 		}
 	}
 
@@ -572,26 +805,38 @@ public class RenderVisitorImpl implements RenderVisitor {
 	@Override
 	public void sendDeleteUpdate(GeometryObject geometryObject) {
 
-		String modelStringId = geometryObject.getModelFile() + geometryObject.getMaterial().toString();
-
-		if (geometryDeleteEventsMap.containsKey(modelStringId)) {
-			geometryDeleteEventsMap.get(modelStringId).add(geometryObject.getUuid());
-		} else {
-			HashSet<UUID> instances = new HashSet<>();
-			instances.add(geometryObject.getUuid());
-			geometryDeleteEventsMap.put(modelStringId, instances);
+		VisibilityCuller culler = visibilityCuller;
+		if (culler == null || culler.remove(geometryObject)) {
+			addDeleteEvent(batchKeys.forGeometry(geometryObject), geometryObject.getUuid());
 		}
+		sentTransformFilter.forget(geometryObject.getUuid());
+
+		// the pickable child (if there is one) is deleted after this, so only forget the key at send time
+		deletedGeometry.add(geometryObject);
 
 	}
 
 	@Override
 	public void sendDeleteUpdate(MaterialObject materialObject) {
-
+		// nothing to build for it any more, and the cached material can go once nothing else uses it
+		dirtyMaterials.remove(materialObject);
+		materialCache.release(materialObject.getUuid());
 	}
 
 	@Override
 	public void sendDeleteUpdate(CameraObject cameraObject) {
-
+		TerrainStreamer streamer = terrainStreamer;
+		if (streamer != null) {
+			streamer.cameraRemoved(cameraObject.getUuid());
+		}
+		VisibilityCuller culler = visibilityCuller;
+		if (culler != null) {
+			culler.cameraRemoved(cameraObject.getUuid());
+		}
+		PickingService picking = pickingService;
+		if (picking != null) {
+			picking.cameraRemoved(cameraObject.getUuid());
+		}
 	}
 
 	@Override
@@ -601,12 +846,12 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 	@Override
 	public void sendDeleteUpdate(SkyBoxObject skyBoxObject) {
-
+		textureRegistry.release(skyBoxObject);
 	}
 
 	@Override
 	public void sendDeleteUpdate(TextObject textObject) {
-		gameBus.dispatch(new TextRemoveEvent(
+		frameEventWriter.write(new TextRemoveEvent(
 				textObject.getUuid(),
 				textObject.getFontName(),
 				textObject.getName(),
@@ -616,30 +861,51 @@ public class RenderVisitorImpl implements RenderVisitor {
 
 	@Override
 	public void sendDeleteUpdate(TextureObject textureObject) {
-
+		// texture is unloaded at the end of the tick if nothing else is using it
+		textureRegistry.release(textureObject);
 	}
 
 	@Override
 	public void sendDeleteUpdate(NormalMapObject normalMapObject) {
-
+		textureRegistry.release(normalMapObject);
 	}
 
 	@Override
 	public void sendDeleteUpdate(TerrainChunkObject terrainChunkObject) {
 
-		gameBus.dispatch(new HeightMapMeshRemoveEvent(
-				terrainChunkObject.getName()
-		));
+		heightMapSnapshots.remove(terrainChunkObject);
 
-		String modelStringId = terrainChunkObject.getName() + terrainChunkObject.getMaterialID().toString();
+		TerrainStreamer streamer = terrainStreamer;
+		if (streamer == null || streamer.remove(terrainChunkObject)) {
+			unloadTerrainChunk(terrainChunkObject);
+		}
+	}
 
-		if (geometryDeleteEventsMap.containsKey(modelStringId)) {
-			geometryDeleteEventsMap.get(modelStringId).add(terrainChunkObject.getUuid());
-		} else {
-			HashSet<UUID> instances = new HashSet<>();
-			instances.add(terrainChunkObject.getUuid());
-			geometryDeleteEventsMap.put(modelStringId, instances);
+	private void revealGeometry(GeometryObject geometryObject) {
+		queueGeometryCreate(geometryObject);
+	}
+
+	// off the renderer until a camera can see it again. the next create carries its transform, so the filter
+	// starts again from that
+	private void hideGeometry(GeometryObject geometryObject) {
+		BatchKey batchKey = batchKeys.forGeometry(geometryObject);
+		addDeleteEvent(batchKey, geometryObject.getUuid());
+		sentTransformFilter.forget(geometryObject.getUuid());
+		InstanceBatch instanceBatch = geometryUpdateBatches.get(batchKey);
+		if (instanceBatch != null) {
+			instanceBatch.remove(geometryObject.getUuid());
 		}
+	}
+
+	private void unloadTerrainChunk(TerrainChunkObject terrainChunkObject) {
+
+		// the mesh stays on the renderer in case the chunk comes back, until the cache evicts it
+		String meshName = heightMapCache.release(terrainChunkObject);
+		if (meshName == null) {
+			return;
+		}
+
+		addDeleteEvent(batchKeys.intern(meshName, terrainChunkObject.getMaterialID()), terrainChunkObject.getUuid());
 
 	}
 
@@ -654,38 +920,116 @@ public class RenderVisitorImpl implements RenderVisitor {
 		// get parent geometry
 		if (pickableObject.getParent() != null && pickableObject.getParent().getComponentType().equals(ComponentType.GEOMETRY)) {
 			GeometryObject geometryObject = (GeometryObject) pickableObject.getParent();
-			String modelStringId = geometryObject.getModelFile();
 
-			if (pickingDeleteEventsMap.containsKey(modelStringId)) {
-				pickingDeleteEventsMap.get(modelStringId).add(geometryObject.getUuid());
-			} else {
-				HashSet<UUID> instances = new HashSet<>();
-				instances.add(geometryObject.getUuid());
-				pickingDeleteEventsMap.put(modelStringId, instances);
+			PickingService picking = pickingService;
+			if (picking != null) {
+				picking.remove(geometryObject);
+			}
+
+			if (!pickingStreams) {
+				return;
 			}
 
+			BatchKey batchKey = batchKeys.forGeometry(geometryObject).getModelKey();
+
+			HashSet<UUID> instances = pickingDeleteEventsMap.get(batchKey);
+			if (instances == null) {
+				instances = new HashSet<>();
+				pickingDeleteEventsMap.put(batchKey, instances);
+			}
+			instances.add(geometryObject.getUuid());
+
 		}
 
 	}
 
 	@Override
 	public void sendDeleteUpdate(MeshObject meshObject) {
-		gameBus.dispatch(new HeightMapMeshRemoveEvent(
+
+		frameEventWriter.write(new HeightMapMeshRemoveEvent(
 				meshObject.getName()
 		));
 
-		String modelStringId = meshObject.getName() + meshObject.getMaterialID().toString();
+		addDeleteEvent(batchKeys.intern(meshObject.getName(), meshObject.getMaterialID()), meshObject.getUuid());
+	}
 
-		if (geometryDeleteEventsMap.containsKey(modelStringId)) {
-			geometryDeleteEventsMap.get(modelStringId).add(meshObject.getUuid());
-		} else {
-			HashSet<UUID> instances = new HashSet<>();
-			instances.add(meshObject.getUuid());
-			geometryDeleteEventsMap.put(modelStringId, instances);
-		}
+	// switches geometry instance updates over to stream mode, where the batches go to the writers writeStreamed
+	// instead of as GeometryUpdateEvents
+	public void setInstanceStreaming(boolean instanceStreaming) {
+		this.instanceStreaming = instanceStreaming;
 	}
 
-	public void setLayerName(String layerName) {
-		this.layerName = layerName;
+	// keeps the transform each instance moved from with its update so the render thread can interpolate
+	public void setInstanceInterpolation(boolean instanceInterpolation) {
+		this.instanceInterpolation = instanceInterpolation;
+	}
+
+	// material builds saved by only building each dirty material once a frame
+	public long getCoalescedMaterialBuilds() {
+		return coalescedMaterialBuilds;
+	}
+
+	public MaterialCache getMaterialCache() {
+		return materialCache;
+	}
+
+	public TextureRegistry getTextureRegistry() {
+		return textureRegistry;
+	}
+
+	public HeightMapCache getHeightMapCache() {
+		return heightMapCache;
+	}
+
+	// must be set before any terrain is created, chunks sent before it was set are not streamed
+	public void setTerrainStreamer(TerrainStreamer terrainStreamer) {
+		this.terrainStreamer = terrainStreamer;
+	}
+
+	public TerrainStreamer getTerrainStreamer() {
+		return terrainStreamer;
+	}
+
+	// must be set before any geometry is created, geometry sent before it was set is never culled
+	public void setVisibilityCuller(VisibilityCuller visibilityCuller) {
+		this.visibilityCuller = visibilityCuller;
+	}
+
+	public VisibilityCuller getVisibilityCuller() {
+		return visibilityCuller;
+	}
+
+	// must be set before anything pickable is created, pickables sent before it was set can't be picked
+	public void setPickingService(PickingService pickingService) {
+		this.pickingService = pickingService;
+	}
+
+	public PickingService getPickingService() {
+		return pickingService;
+	}
+
+	// false stops sending pickables to the renderer for its picking pass, for when the picking service answers
+	// picks instead. set before anything pickable is created
+	public void setPickingStreams(boolean pickingStreams) {
+		this.pickingStreams = pickingStreams;
+	}
+
+	// total number of instance updates that were dropped because a later one for the same instance replaced
+	// them in the same frame
+	public long getCoalescedInstanceUpdates() {
+		return coalescedInstanceUpdates;
+	}
+
+	public SentTransformFilter getSentTransformFilter() {
+		return sentTransformFilter;
+	}
+
+	private void addDeleteEvent(BatchKey batchKey, UUID uuid) {
+		HashSet<UUID> instances = geometryDeleteEventsMap.get(batchKey);
+		if (instances == null) {
+			instances = new HashSet<>();
+			geometryDeleteEventsMap.put(batchKey, instances);
+		}
+		instances.add(uuid);
 	}
 }
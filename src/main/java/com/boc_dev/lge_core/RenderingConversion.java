@@ -1,20 +1,39 @@
 package com.boc_dev.lge_core;
 
-import com.boc_dev.event_bus.busses.GameBus;
 import com.boc_dev.lge_model.gcs.Component;
 import com.boc_dev.maths.objects.matrix.Matrix4f;
 
 public class RenderingConversion {
 
 	private final RenderVisitorImpl renderVisitorImpl;
+	private final ChangeJournal changeJournal = new ChangeJournal();
 
-	public RenderingConversion(GameBus gameBus) {
+	public RenderingConversion(FrameEventWriter frameEventWriter, String layerName) {
 
-		this.renderVisitorImpl = new RenderVisitorImpl(gameBus);
+		this.renderVisitorImpl = new RenderVisitorImpl(frameEventWriter, layerName);
 
 	}
 
+	public RenderingConversion(FrameEventWriter frameEventWriter, String layerName, TextureRegistry textureRegistry, HeightMapCache heightMapCache) {
+
+		this.renderVisitorImpl = new RenderVisitorImpl(frameEventWriter, layerName, textureRegistry, heightMapCache);
+
+	}
+
+	// applies the frames net changes, then sends everything to the renderer
 	public void send() {
+		applyChanges();
+		sendUpdates();
+	}
+
+	// net creates, deletes and renderable type changes from the journal
+	public void applyChanges() {
+		changeJournal.apply(this);
+		changeJournal.clear();
+	}
+
+	// everything the visitor has collected this frame
+	public void sendUpdates() {
 		renderVisitorImpl.send();
 	}
 
@@ -26,7 +45,10 @@ public class RenderingConversion {
 	}
 
 	public void sendComponentInstanceUpdate(Component component, Matrix4f newTransform) {
-		component.updateRenderable(renderVisitorImpl, newTransform);
+		// anything being created, deleted or replaced this frame doesn't need an instance update as well
+		if (!changeJournal.suppressesInstanceUpdate(component)) {
+			component.updateRenderable(renderVisitorImpl, newTransform);
+		}
 	}
 
 	public void sendComponentDeleteUpdate(Component component) {
@@ -37,7 +59,67 @@ public class RenderingConversion {
 		component.createRenderable(renderVisitorImpl);
 	}
 
-	public void setLayerName(String layerName) {
-		renderVisitorImpl.setLayerName(layerName);
+	public ChangeJournal getChangeJournal() {
+		return changeJournal;
+	}
+
+	public void setInstanceStreaming(boolean instanceStreaming) {
+		renderVisitorImpl.setInstanceStreaming(instanceStreaming);
+	}
+
+	public void setInstanceInterpolation(boolean instanceInterpolation) {
+		renderVisitorImpl.setInstanceInterpolation(instanceInterpolation);
+	}
+
+	public long getCoalescedInstanceUpdates() {
+		return renderVisitorImpl.getCoalescedInstanceUpdates();
+	}
+
+	public MaterialCache getMaterialCache() {
+		return renderVisitorImpl.getMaterialCache();
+	}
+
+	public long getCoalescedMaterialBuilds() {
+		return renderVisitorImpl.getCoalescedMaterialBuilds();
+	}
+
+	public TextureRegistry getTextureRegistry() {
+		return renderVisitorImpl.getTextureRegistry();
+	}
+
+	public HeightMapCache getHeightMapCache() {
+		return renderVisitorImpl.getHeightMapCache();
+	}
+
+	public void setTerrainStreamer(TerrainStreamer terrainStreamer) {
+		renderVisitorImpl.setTerrainStreamer(terrainStreamer);
+	}
+
+	public TerrainStreamer getTerrainStreamer() {
+		return renderVisitorImpl.getTerrainStreamer();
+	}
+
+	public void setVisibilityCuller(VisibilityCuller visibilityCuller) {
+		renderVisitorImpl.setVisibilityCuller(visibilityCuller);
+	}
+
+	public VisibilityCuller getVisibilityCuller() {
+		return renderVisitorImpl.getVisibilityCuller();
+	}
+
+	public void setPickingService(PickingService pickingService) {
+		renderVisitorImpl.setPickingService(pickingService);
+	}
+
+	public PickingService getPickingService() {
+		return renderVisitorImpl.getPickingService();
+	}
+
+	public void setPickingStreams(boolean pickingStreams) {
+		renderVisitorImpl.setPickingStreams(pickingStreams);
+	}
+
+	public SentTransformFilter getSentTransformFilter() {
+		return renderVisitorImpl.getSentTransformFilter();
 	}
 }
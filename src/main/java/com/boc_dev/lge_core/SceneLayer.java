@@ -4,6 +4,7 @@ import com.boc_dev.event_bus.busses.GameBus;
 import com.boc_dev.lge_model.gcs.Component;
 import com.boc_dev.lge_model.gcs.Registry;
 import com.boc_dev.lge_model.gcs.RegistryUpdater;
+import com.boc_dev.lge_model.generated.components.TransformObject;
 import com.boc_dev.lge_model.systems.GcsSystem;
 import com.boc_dev.graphics_library.Shader;
 import com.boc_dev.graphics_library.objects.lighting.Fog;
@@ -21,6 +22,14 @@ public class SceneLayer {
 	private final Scene scene;
 	private final GameBus gameBus;
 
+	// update pipeline state. each layer owns its own so layers can be ticked at the same time
+	private final TreeUtils treeUtils = new TreeUtils();
+	private final SceneLayerChanges changes = new SceneLayerChanges();
+	private final DirtyRootCollector dirtyRootCollector = new DirtyRootCollector();
+	private final ArrayList<TransformObject> updateTransform = new ArrayList<>();
+	private final LayerTimings layerTimings = new LayerTimings();
+	private RenderingConversion renderingConversion;
+
 	public SceneLayer(String layerName, Vec3f ambientLight, Fog fog) {
 
 		this.gameBus = new GameBus();
@@ -64,4 +73,32 @@ public class SceneLayer {
 	public Scene getScene() {
 		return scene;
 	}
+
+	public RenderingConversion getRenderingConversion() {
+		return renderingConversion;
+	}
+
+	void setRenderingConversion(RenderingConversion renderingConversion) {
+		this.renderingConversion = renderingConversion;
+	}
+
+	public SceneLayerChanges getChanges() {
+		return changes;
+	}
+
+	DirtyRootCollector getDirtyRootCollector() {
+		return dirtyRootCollector;
+	}
+
+	TreeUtils getTreeUtils() {
+		return treeUtils;
+	}
+
+	ArrayList<TransformObject> getUpdateTransform() {
+		return updateTransform;
+	}
+
+	public LayerTimings getLayerTimings() {
+		return layerTimings;
+	}
 }
@@ -0,0 +1,54 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.interfaces.Event;
+import com.boc_dev.event_bus.interfaces.Subscribable;
+import com.boc_dev.lge_model.bus.RenderableUpdateEvent;
+import com.boc_dev.lge_model.bus.RenderableUpdateEventType;
+import com.boc_dev.lge_model.gcs.Component;
+import com.boc_dev.lge_model.generated.components.TransformObject;
+
+import java.util.ArrayList;
+
+// collects the renderable changes coming off a single layers game bus. producers can be any thread, draining is
+// done by whichever thread is ticking the layer
+public class SceneLayerChanges implements Subscribable {
+
+	private final ChangeRing<Event<?>> changeRing = new ChangeRing<>(1024);
+	private final ArrayList<Event<?>> drained = new ArrayList<>();
+
+	@Override
+	public void handle(Event<?> event) {
+		if (event.getType().equals(RenderableUpdateEventType.CREATE)
+				|| event.getType().equals(RenderableUpdateEventType.DESTROY)
+				|| event.getType().equals(RenderableUpdateEventType.UPDATE_TRANSFORM)
+				|| event.getType().equals(RenderableUpdateEventType.UPDATE_RENDERABLE)) {
+			changeRing.offer(event);
+		}
+	}
+
+	@Override
+	public boolean supports(Class<? extends Event> aClass) {
+		return aClass.equals(RenderableUpdateEvent.class);
+	}
+
+	// creates, destroys and renderable updates are folded into the journal in the order they happened, transform
+	// updates are listed for the dirty root collector
+	void drainTo(ChangeJournal changeJournal, ArrayList<TransformObject> updateTransform) {
+
+		changeRing.drainTo(drained);
+
+		for (Event<?> event : drained) {
+			if (event.getType().equals(RenderableUpdateEventType.CREATE)) {
+				changeJournal.recordCreate((Component) event.getData());
+			} else if (event.getType().equals(RenderableUpdateEventType.DESTROY)) {
+				changeJournal.recordDelete((Component) event.getData());
+			} else if (event.getType().equals(RenderableUpdateEventType.UPDATE_TRANSFORM)) {
+				updateTransform.add((TransformObject) event.getData());
+			} else {
+				changeJournal.recordRenderableUpdate((Component) event.getData());
+			}
+		}
+
+		drained.clear();
+	}
+}
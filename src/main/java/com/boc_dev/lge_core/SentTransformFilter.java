@@ -0,0 +1,106 @@
+package com.boc_dev.lge_core;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+// remembers the last transform sent to the renderer for every instance, and drops updates that are identical to
+// it (or within epsilon of it, element by element). plenty of things get flagged dirty without actually moving,
+// this stops them costing an upload. not thread safe, one per render visitor
+public class SentTransformFilter {
+
+	private static final int MATRIX_FLOATS = 16;
+
+	private final UuidSlotIndex slotIndex = new UuidSlotIndex(1024);
+	private float[] lastSent = new float[1024 * MATRIX_FLOATS];
+	private int[] freeSlots = new int[64];
+	private int freeCount = 0;
+	private int nextSlot = 0;
+
+	private volatile float epsilon = 0;
+	private volatile long sentUpdates = 0;
+	private volatile long skippedUpdates = 0;
+
+	// returns true if the update needs to go to the renderer, in which case it becomes the last sent transform
+	public boolean shouldSend(UUID id, float[] transform) {
+
+		int slot = slotIndex.get(id);
+
+		if (slot >= 0 && matches(slot, transform)) {
+			skippedUpdates++;
+			return false;
+		}
+
+		store(id, slot, transform);
+		sentUpdates++;
+		return true;
+	}
+
+	// copies the last transform sent for the instance into out. returns false if nothing has been sent for it
+	public boolean copyLastSent(UUID id, float[] out) {
+		int slot = slotIndex.get(id);
+		if (slot < 0) {
+			return false;
+		}
+		System.arraycopy(lastSent, slot * MATRIX_FLOATS, out, 0, MATRIX_FLOATS);
+		return true;
+	}
+
+	// records a transform the renderer got some other way (ie in a create event) without counting it as an update
+	public void record(UUID id, float[] transform) {
+		store(id, slotIndex.get(id), transform);
+	}
+
+	// instance has gone from the renderer, so forget about it
+	public void forget(UUID id) {
+		int slot = slotIndex.remove(id);
+		if (slot >= 0) {
+			if (freeCount == freeSlots.length) {
+				freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+			}
+			freeSlots[freeCount++] = slot;
+		}
+	}
+
+	// 0 only drops updates that are exactly the same as the last one sent
+	public void setEpsilon(float epsilon) {
+		this.epsilon = Math.max(0, epsilon);
+	}
+
+	public float getEpsilon() {
+		return epsilon;
+	}
+
+	public long getSentUpdates() {
+		return sentUpdates;
+	}
+
+	public long getSkippedUpdates() {
+		return skippedUpdates;
+	}
+
+	public int getTrackedInstances() {
+		return slotIndex.size();
+	}
+
+	private boolean matches(int slot, float[] transform) {
+		float tolerance = epsilon;
+		int offset = slot * MATRIX_FLOATS;
+		for (int i = 0; i < MATRIX_FLOATS; i++) {
+			if (Math.abs(lastSent[offset + i] - transform[i]) > tolerance) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void store(UUID id, int slot, float[] transform) {
+		if (slot < 0) {
+			slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+			if ((slot + 1) * MATRIX_FLOATS > lastSent.length) {
+				lastSent = Arrays.copyOf(lastSent, lastSent.length * 2);
+			}
+			slotIndex.put(id, slot);
+		}
+		System.arraycopy(transform, 0, lastSent, slot * MATRIX_FLOATS, MATRIX_FLOATS);
+	}
+}
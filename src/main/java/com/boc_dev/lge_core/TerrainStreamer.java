@@ -0,0 +1,206 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.lge_model.generated.components.TerrainChunkObject;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// decides which terrain chunks the renderer should have, based on how far they are from the camera. chunks load
+// once they come within loadRadius, nearest first and at most maxUploadsPerFrame a tick, and only unload once they
+// are further than unloadRadius, so a chunk sat on the boundary doesn't flick in and out as the camera wobbles.
+// distances are to the nearest the chunk could possibly be, ie from its origin less its diagonal, so it doesn't
+// matter which way the grid runs. without a camera nothing is loaded or unloaded, whatever is on the renderer stays
+// until one turns up. one per render visitor, update thread only
+public class TerrainStreamer {
+
+	private static final class StreamedChunk {
+		private final TerrainChunkObject terrainChunkObject;
+		private final float[] origin = new float[3];
+		private final float diagonal;
+		private boolean loaded = false;
+		private float distance;
+
+		private StreamedChunk(TerrainChunkObject terrainChunkObject) {
+			this.terrainChunkObject = terrainChunkObject;
+			MatrixMath.translation(Matrix4f.Translation(terrainChunkObject.getOrigin()).getValues(), origin);
+			float[][] grid = terrainChunkObject.getGrid();
+			float width = grid.length * terrainChunkObject.getCellSpace();
+			float depth = (grid.length == 0 ? 0 : grid[0].length) * terrainChunkObject.getCellSpace();
+			this.diagonal = (float) Math.sqrt(width * width + depth * depth);
+		}
+	}
+
+	private final float loadRadius;
+	private final float unloadRadius;
+	private final int maxUploadsPerFrame;
+	// camera has to move this far before everything is looked at again (unless something is waiting on budget)
+	private final float reevaluateDistance;
+
+	private final IdentityHashMap<TerrainChunkObject, StreamedChunk> chunks = new IdentityHashMap<>();
+	private final ArrayList<StreamedChunk> candidates = new ArrayList<>();
+
+	// the camera being followed is the first one created, until it is deleted
+	private UUID cameraId = null;
+	private final float[] cameraPosition = new float[3];
+	private final float[] evaluatedPosition = new float[3];
+	private boolean cameraKnown = false;
+	private boolean changed = true;
+
+	// readable from any thread
+	private volatile int knownChunks = 0;
+	private volatile int loadedChunks = 0;
+	private volatile long loads = 0;
+	private volatile long unloads = 0;
+	private volatile long deferredLoads = 0;
+
+	// chunks can load up to reevaluateDistance late and unload up to it late, so it wants to be well inside the gap
+	// between the two radii. the default is a quarter of it
+	public TerrainStreamer(float loadRadius, float unloadRadius, int maxUploadsPerFrame) {
+		this(loadRadius, unloadRadius, maxUploadsPerFrame, (unloadRadius - loadRadius) / 4);
+	}
+
+	public TerrainStreamer(float loadRadius, float unloadRadius, int maxUploadsPerFrame, float reevaluateDistance) {
+		if (loadRadius <= 0) {
+			throw new IllegalArgumentException("Load radius must be positive, got " + loadRadius);
+		}
+		if (unloadRadius < loadRadius) {
+			throw new IllegalArgumentException("Unload radius " + unloadRadius + " must be at least the load radius " + loadRadius);
+		}
+		if (maxUploadsPerFrame < 1) {
+			throw new IllegalArgumentException("Max uploads per frame must be at least 1, got " + maxUploadsPerFrame);
+		}
+		if (!(reevaluateDistance >= 0)) {
+			throw new IllegalArgumentException("Reevaluate distance must not be negative, got " + reevaluateDistance);
+		}
+		this.loadRadius = loadRadius;
+		this.unloadRadius = unloadRadius;
+		this.maxUploadsPerFrame = maxUploadsPerFrame;
+		this.reevaluateDistance = reevaluateDistance;
+	}
+
+	void add(TerrainChunkObject terrainChunkObject) {
+		StreamedChunk streamedChunk = new StreamedChunk(terrainChunkObject);
+		StreamedChunk previous = chunks.put(terrainChunkObject, streamedChunk);
+		// created twice without a delete in between, it is still on the renderer
+		if (previous != null) {
+			streamedChunk.loaded = previous.loaded;
+		}
+		knownChunks = chunks.size();
+		changed = true;
+	}
+
+	// true if the renderer had it, in which case the caller needs to take it out
+	boolean remove(TerrainChunkObject terrainChunkObject) {
+		StreamedChunk streamedChunk = chunks.remove(terrainChunkObject);
+		knownChunks = chunks.size();
+		if (streamedChunk != null && streamedChunk.loaded) {
+			loadedChunks--;
+			return true;
+		}
+		return false;
+	}
+
+	void cameraMoved(UUID id, Matrix4f globalTransform) {
+		if (cameraId == null) {
+			cameraId = id;
+		}
+		if (cameraId.equals(id)) {
+			MatrixMath.translation(globalTransform.getValues(), cameraPosition);
+			if (!cameraKnown) {
+				cameraKnown = true;
+				changed = true;
+			}
+		}
+	}
+
+	void cameraRemoved(UUID id) {
+		if (id.equals(cameraId)) {
+			cameraId = null;
+			cameraKnown = false;
+			changed = true;
+		}
+	}
+
+	// hands over the chunks to load this tick and the ones to unload. does nothing until there is a camera to
+	// measure from, changes made in the meantime are picked up as soon as there is one
+	void update(Consumer<TerrainChunkObject> load, Consumer<TerrainChunkObject> unload) {
+
+		if (!cameraKnown) {
+			return;
+		}
+
+		if (!changed && distanceSquared(cameraPosition, evaluatedPosition) <= reevaluateDistance * reevaluateDistance) {
+			return;
+		}
+
+		System.arraycopy(cameraPosition, 0, evaluatedPosition, 0, 3);
+		changed = false;
+		candidates.clear();
+
+		for (StreamedChunk streamedChunk : chunks.values()) {
+
+			streamedChunk.distance = Math.max(0, (float) Math.sqrt(distanceSquared(cameraPosition, streamedChunk.origin)) - streamedChunk.diagonal);
+
+			if (streamedChunk.loaded) {
+				if (streamedChunk.distance > unloadRadius) {
+					streamedChunk.loaded = false;
+					loadedChunks--;
+					unloads++;
+					unload.accept(streamedChunk.terrainChunkObject);
+				}
+			} else if (streamedChunk.distance <= loadRadius) {
+				candidates.add(streamedChunk);
+			}
+		}
+
+		candidates.sort((a, b) -> Float.compare(a.distance, b.distance));
+
+		int uploads = Math.min(maxUploadsPerFrame, candidates.size());
+		for (int i = 0; i < uploads; i++) {
+			StreamedChunk streamedChunk = candidates.get(i);
+			streamedChunk.loaded = true;
+			loadedChunks++;
+			loads++;
+			load.accept(streamedChunk.terrainChunkObject);
+		}
+
+		// anything over budget gets picked up next tick without waiting for the camera to move
+		if (candidates.size() > uploads) {
+			deferredLoads += candidates.size() - uploads;
+			changed = true;
+		}
+
+		candidates.clear();
+	}
+
+	public int getKnownChunks() {
+		return knownChunks;
+	}
+
+	public int getLoadedChunks() {
+		return loadedChunks;
+	}
+
+	public long getLoads() {
+		return loads;
+	}
+
+	public long getUnloads() {
+		return unloads;
+	}
+
+	// chunk ticks spent waiting in range because the upload budget had run out
+	public long getDeferredLoads() {
+		return deferredLoads;
+	}
+
+	private static float distanceSquared(float[] a, float[] b) {
+		float dx = a[0] - b[0];
+		float dy = a[1] - b[1];
+		float dz = a[2] - b[2];
+		return dx * dx + dy * dy + dz * dz;
+	}
+}
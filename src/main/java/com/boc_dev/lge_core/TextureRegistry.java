@@ -0,0 +1,220 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.interfaces.Event;
+import com.boc_dev.graphics_library.communication.TextureCreateEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// reference counts textures by path across every layer (the renderers texture manager isn't per layer). a texture
+// is only loaded when the first component using it is created and only released once the last one using it has
+// gone. releases are held back until the end of the tick, so something taken out and put straight back in (ie a
+// renderable being replaced) never unloads and reloads its texture.
+// the graphics library only has a create event for textures, so what to send on release is passed in with
+// setReleaseEvent. without one, released textures are dropped from the counts and the renderer keeps them loaded
+public class TextureRegistry {
+
+	private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+	private static final class Entry {
+		private int references = 0;
+		private long bytes = 0;
+	}
+
+	private final HashMap<String, Entry> textures = new HashMap<>();
+	// which path each component took a reference on, so the same one is released whatever it has been changed to
+	private final IdentityHashMap<Object, String> owners = new IdentityHashMap<>();
+	private final ArrayList<String> pendingReleases = new ArrayList<>();
+
+	// where the size estimates are worked out, they need to open the file. null does it inline
+	private volatile Executor estimateExecutor = null;
+	private volatile Function<String, Event<?>> releaseEvent = null;
+
+	private long residentBytes = 0;
+	private long loads = 0;
+	private long releases = 0;
+
+	// takes a reference on path for owner, sending the load if nothing else is using it
+	public void acquire(Object owner, String path, FrameEventWriter frameEventWriter) {
+		Entry created = reference(owner, path, frameEventWriter);
+		// working out the size opens the file, so it is never done holding the lock, whether it ends up on the
+		// estimate executor, inline because there isn't one, or inline because the executor ran it on this thread
+		if (created != null) {
+			estimate(path, created);
+		}
+	}
+
+	public void setEstimateExecutor(Executor estimateExecutor) {
+		this.estimateExecutor = estimateExecutor;
+	}
+
+	// makes the event sent when a texture is no longer used by anything, ie the renderers texture remove event
+	public void setReleaseEvent(Function<String, Event<?>> releaseEvent) {
+		this.releaseEvent = releaseEvent;
+	}
+
+	// the entry if this was the first reference to path, null otherwise
+	private synchronized Entry reference(Object owner, String path, FrameEventWriter frameEventWriter) {
+
+		if (path == null || path.isBlank()) {
+			return null;
+		}
+
+		String previous = owners.put(owner, path);
+		if (path.equals(previous)) {
+			// created again without being deleted, already counted
+			return null;
+		}
+		if (previous != null) {
+			release(previous);
+		}
+
+		Entry entry = textures.get(path);
+		Entry created = null;
+		if (entry == null) {
+			entry = new Entry();
+			textures.put(path, entry);
+			created = entry;
+			loads++;
+			frameEventWriter.write(new TextureCreateEvent(path));
+		}
+		// if it was waiting to be released, this takes it off the list as the count is no longer 0
+		entry.references++;
+		return created;
+	}
+
+	// drops owners reference
+	public synchronized void release(Object owner) {
+		String path = owners.remove(owner);
+		if (path != null) {
+			release(path);
+		}
+	}
+
+	// sends the release for everything that is still unused, once every layer has finished with the tick
+	public synchronized void flushReleases(Consumer<Event<?>> eventConsumer) {
+		Function<String, Event<?>> releaseEvent = this.releaseEvent;
+		for (String path : pendingReleases) {
+			Entry entry = textures.get(path);
+			if (entry != null && entry.references == 0) {
+				textures.remove(path);
+				residentBytes -= entry.bytes;
+				releases++;
+				if (releaseEvent != null) {
+					eventConsumer.accept(releaseEvent.apply(path));
+				}
+			}
+		}
+		pendingReleases.clear();
+	}
+
+	public synchronized int getResidentTextures() {
+		return textures.size();
+	}
+
+	// estimated decoded size of everything loaded, see estimateBytes
+	public synchronized long getResidentBytes() {
+		return residentBytes;
+	}
+
+	public synchronized int getReferences(String path) {
+		Entry entry = textures.get(path);
+		return entry == null ? 0 : entry.references;
+	}
+
+	public synchronized long getLoads() {
+		return loads;
+	}
+
+	public synchronized long getReleases() {
+		return releases;
+	}
+
+	// counted as 0 bytes until the estimate comes back. only called without the lock held
+	private void estimate(String path, Entry entry) {
+
+		Executor executor = estimateExecutor;
+
+		if (executor == null) {
+			recordEstimate(path, entry, estimateBytes(path));
+			return;
+		}
+
+		executor.execute(() -> recordEstimate(path, entry, estimateBytes(path)));
+	}
+
+	// if it was released in the meantime the estimate is just dropped
+	private synchronized void recordEstimate(String path, Entry entry, long bytes) {
+		if (textures.get(path) == entry) {
+			entry.bytes = bytes;
+			residentBytes += bytes;
+		}
+	}
+
+	private void release(String path) {
+		Entry entry = textures.get(path);
+		if (entry != null && --entry.references == 0) {
+			pendingReleases.add(path);
+		}
+	}
+
+	// rgba8 size for pngs, read from the header. anything else is counted by its size on disk. 0 if it can't be
+	// found, ie a cube map given by its folder. only ever done once per texture, on first load
+	static long estimateBytes(String path) {
+
+		URL url = TextureRegistry.class.getResource(path);
+
+		try {
+			if (url != null) {
+				try (InputStream inputStream = url.openStream()) {
+					long pngBytes = pngBytes(inputStream);
+					return pngBytes >= 0 ? pngBytes : Math.max(0, url.openConnection().getContentLengthLong());
+				}
+			}
+			Path filePath = Paths.get(path);
+			if (Files.isRegularFile(filePath)) {
+				try (InputStream inputStream = Files.newInputStream(filePath)) {
+					long pngBytes = pngBytes(inputStream);
+					return pngBytes >= 0 ? pngBytes : Files.size(filePath);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			return 0;
+		}
+
+		return 0;
+	}
+
+	// width and height are the first two fields of the IHDR chunk, straight after the signature
+	private static long pngBytes(InputStream inputStream) throws IOException {
+		byte[] header = inputStream.readNBytes(24);
+		if (header.length < 24) {
+			return -1;
+		}
+		for (int i = 0; i < PNG_SIGNATURE.length; i++) {
+			if (header[i] != PNG_SIGNATURE[i]) {
+				return -1;
+			}
+		}
+		long width = readInt(header, 16) & 0xffffffffL;
+		long height = readInt(header, 20) & 0xffffffffL;
+		return width * height * 4;
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return ((bytes[offset] & 0xff) << 24)
+				| ((bytes[offset + 1] & 0xff) << 16)
+				| ((bytes[offset + 2] & 0xff) << 8)
+				| (bytes[offset + 3] & 0xff);
+	}
+}
@@ -0,0 +1,19 @@
+package com.boc_dev.lge_core;
+
+// the parts of a layers tick that get timed separately
+public enum TickPhase {
+	// RegistryUpdater.run, ie every system
+	REGISTRY_UPDATE,
+	// pulling the frames renderable changes off the layers queue into the journal
+	CHANGE_DRAIN,
+	// finding the highest dirty transform above each updated one
+	DIRTY_ROOTS,
+	// walking back down from the roots and converting the instance updates
+	TRANSFORM_RESOLVE,
+	// net creates, deletes and renderable type changes from the journal
+	CONVERSION,
+	// the visitor building and writing out the frames render events
+	SEND,
+	// the whole layer tick
+	TOTAL
+}
@@ -0,0 +1,135 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.lge_model.gcs.Component;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+// resolves a run of independent subtrees. big runs get split in half, and any component with a very wide list of
+// children has its children forked off as their own task. renderable updates are kept in the task and only sent
+// once everything has joined, see sendInstanceUpdates
+class TransformResolveTask extends RecursiveAction {
+
+	// each worker thread keeps its own walk stacks
+	private static final ThreadLocal<Walker> WALKERS = ThreadLocal.withInitial(Walker::new);
+
+	private final Component[] roots;
+	private final Matrix4f[] startingGlobalTransforms;
+	private final int from;
+	private final int to;
+	private final int splitThreshold;
+
+	private final ArrayList<Component> updatedComponents = new ArrayList<>();
+	private final ArrayList<Matrix4f> updatedTransforms = new ArrayList<>();
+	private final ArrayList<TransformResolveTask> subTasks = new ArrayList<>();
+
+	TransformResolveTask(Component[] roots, Matrix4f[] startingGlobalTransforms, int from, int to, int splitThreshold) {
+		this.roots = roots;
+		this.startingGlobalTransforms = startingGlobalTransforms;
+		this.from = from;
+		this.to = to;
+		this.splitThreshold = splitThreshold;
+	}
+
+	@Override
+	protected void compute() {
+
+		// too many roots for one task, split in half
+		if (to - from > splitThreshold) {
+			int mid = (from + to) >>> 1;
+			TransformResolveTask left = new TransformResolveTask(roots, startingGlobalTransforms, from, mid, splitThreshold);
+			TransformResolveTask right = new TransformResolveTask(roots, startingGlobalTransforms, mid, to, splitThreshold);
+			subTasks.add(left);
+			subTasks.add(right);
+			invokeAll(left, right);
+			return;
+		}
+
+		Walker walker = WALKERS.get();
+		for (int i = from; i < to; i++) {
+			walker.walk(roots[i], startingGlobalTransforms[i], this);
+		}
+
+		// wait for any wide child lists that were forked off during the walk
+		for (TransformResolveTask subTask : subTasks) {
+			subTask.join();
+		}
+	}
+
+	// must be called on one thread after the task has completed
+	void sendInstanceUpdates(RenderingConversion renderingConversion) {
+		for (int i = 0; i < updatedComponents.size(); i++) {
+			renderingConversion.sendComponentInstanceUpdate(updatedComponents.get(i), updatedTransforms.get(i));
+		}
+		for (TransformResolveTask subTask : subTasks) {
+			subTask.sendInstanceUpdates(renderingConversion);
+		}
+	}
+
+	private void forkChildren(Component component, Matrix4f globalTransform) {
+
+		Component[] children = new Component[component.getChildren().size()];
+		int count = 0;
+		for (Component child : component.getChildren()) {
+			children[count++] = child;
+		}
+
+		Matrix4f[] childStartingTransforms = new Matrix4f[count];
+		Arrays.fill(childStartingTransforms, globalTransform);
+
+		TransformResolveTask childTask = new TransformResolveTask(children, childStartingTransforms, 0, count, splitThreshold);
+		subTasks.add(childTask);
+		childTask.fork();
+	}
+
+	private static final class Walker {
+
+		private Component[] componentStack = new Component[64];
+		private Matrix4f[] matrixStack = new Matrix4f[64];
+
+		private void walk(Component root, Matrix4f startingGlobalTransform, TransformResolveTask task) {
+
+			int size = push(0, root, startingGlobalTransform);
+
+			while (size > 0) {
+
+				size--;
+				Component current = componentStack[size];
+				Matrix4f globalTransform = matrixStack[size];
+				componentStack[size] = null;
+				matrixStack[size] = null;
+
+				globalTransform = TreeUtils.resolveComponentTransform(current, globalTransform);
+
+				if (current.getComponentType().isRender()) {
+					task.updatedComponents.add(current);
+					task.updatedTransforms.add(globalTransform);
+				}
+
+				current.setGlobalTransform(globalTransform);
+				current.setClean();
+
+				// very wide child lists get handed off so other workers can steal them
+				if (current.getChildren().size() > task.splitThreshold) {
+					task.forkChildren(current, globalTransform);
+				} else {
+					for (Component child : current.getChildren()) {
+						size = push(size, child, globalTransform);
+					}
+				}
+			}
+		}
+
+		private int push(int size, Component component, Matrix4f globalTransform) {
+			if (size == componentStack.length) {
+				componentStack = Arrays.copyOf(componentStack, size * 2);
+				matrixStack = Arrays.copyOf(matrixStack, size * 2);
+			}
+			componentStack[size] = component;
+			matrixStack[size] = globalTransform;
+			return size + 1;
+		}
+	}
+}
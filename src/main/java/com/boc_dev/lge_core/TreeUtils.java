@@ -6,38 +6,30 @@ import com.boc_dev.lge_model.generated.components.GeometryObject;
 import com.boc_dev.lge_model.generated.components.TransformObject;
 import com.boc_dev.maths.objects.matrix.Matrix4f;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 public class TreeUtils {
 
-	// TODO definitely write tests for this, who knows if this works...
+	// work stacks for the tree walks. reused between calls so deep hierarchies don't grow the call stack, and
+	// nothing gets allocated once they have grown to fit the scene
+	private Component[] componentStack = new Component[64];
+	private Matrix4f[] matrixStack = new Matrix4f[64];
+
 	// this function steps up the tree until it gets to the root node. from there it steps downwards to find the
 	// highest transform that has a dirty flag set to true. If it finds one it will return it. If it doesnt (ie all
 	// transforms has been resolved) it returns null.
+	// the highest dirty transform is the last one seen on the way up, so just remember it while climbing
 	public TransformObject findRootDirtyTransform(Component component) {
-		// if component has parent, get parent and run again
-		if (component.getParent() != null) {
-			TransformObject returnedComponent = findRootDirtyTransform(component.getParent());
-			// if the returned component is not null, then we have found the highest transform with a dirty flag set true
-			// so return it
-			if (returnedComponent != null) {
-				return returnedComponent;
-			}
-			// if it is null, we need to check this layers component for whether its a transform and dirty
-			if (component.getComponentType().equals(ComponentType.TRANSFORM) && component.isDirty()) {
-				// if it is a transform and dirty, return this to be entered into the transform resolver function
-				return (TransformObject) component;
+		TransformObject highestDirtyTransform = null;
+		for (Component current = component; current != null; current = current.getParent()) {
+			if (current.getComponentType().equals(ComponentType.TRANSFORM) && current.isDirty()) {
+				highestDirtyTransform = (TransformObject) current;
 			}
-			// if it is not, return null again so next layer can check
-			return null;
-		}
-		// if it doesn't have parent, it is root node and we need to check for type and dirty flag
-		else if (component.getComponentType().equals(ComponentType.TRANSFORM) && component.isDirty()) {
-			// if it is a transform and dirty, return this to be entered into the transform resolver function
-			return (TransformObject) component;
-		}
-		// if it doesn't and its not a transform and dirt, return null so the next level down can be checked
-		else {
-			return null;
 		}
+		return highestDirtyTransform;
 	}
 
 	// this function takes in a component and a current world transform (as a matrix4f) and walks down the tree,
@@ -45,74 +37,181 @@ public class TreeUtils {
 	// rendering module if it comes across a renderable, with its id and a new matrix4f for it
 	public void resolveTransformsAndSend(Component component, Matrix4f currentGlobalTransform, RenderingConversion renderingConversion) {
 
-		// if its a transform object, update the currentGlobalTransform
-		if (component.getComponentType().equals(ComponentType.TRANSFORM)) {
-			TransformObject transformObject = (TransformObject) component;
+		int size = push(0, component, currentGlobalTransform);
+
+		while (size > 0) {
+
+			size--;
+			Component current = componentStack[size];
+			Matrix4f globalTransform = matrixStack[size];
+			componentStack[size] = null;
+			matrixStack[size] = null;
+
+			globalTransform = resolveComponentTransform(current, globalTransform);
+
+			// if the component is a renderable, send an update to the graphics updating the instance transform of it
+			if (current.getComponentType().isRender()) {
+				renderingConversion.sendComponentInstanceUpdate(current, globalTransform);
+			}
 
-			currentGlobalTransform = Matrix4f.Transform(
-					transformObject.getPosition(),
-					transformObject.getRotation().toMatrix(),
-					transformObject.getScale()).multiply(currentGlobalTransform);
-			// then set clean so the next pass doesn't bother with this transform
+			// then set the components global transform matrix
+			current.setGlobalTransform(globalTransform);
+			current.setClean();
+
+			// then queue up all children
+			size = pushChildren(size, current, globalTransform, false);
 		}
-		// if the component is a renderable, send an update to the graphics updating the instance transform of it
-		else if (component.getComponentType().isRender()) {
+	}
 
-			if (component.getComponentType().equals(ComponentType.GEOMETRY)) {
-				GeometryObject geometryObject = (GeometryObject) component;
-				currentGlobalTransform = geometryObject.getLocalTransformation().multiply(currentGlobalTransform);
+	// resolves every dirty root, splitting the work over the pool when there is enough of it to be worth it.
+	// the roots must be independent (none of them inside another ones subtree), which is what the dirty root
+	// collector gives back. instance updates from the workers are buffered and handed to the rendering conversion
+	// on the calling thread, so the conversion never gets touched by more than one thread
+	public void resolveTransformsAndSend(List<TransformObject> dirtyRoots,
+	                                     RenderingConversion renderingConversion,
+	                                     ForkJoinPool forkJoinPool,
+	                                     int parallelThreshold) {
+
+		// rough guess at the amount of work, only looking one level down so it stays cheap
+		int estimatedWork = dirtyRoots.size();
+		for (int i = 0; i < dirtyRoots.size() && estimatedWork < parallelThreshold; i++) {
+			estimatedWork += dirtyRoots.get(i).getChildren().size();
+		}
+
+		if (forkJoinPool == null || estimatedWork < parallelThreshold) {
+			for (TransformObject rootDirtyTransform : dirtyRoots) {
+				resolveTransformsAndSend(rootDirtyTransform, getStartingGlobalTransform(rootDirtyTransform), renderingConversion);
 			}
+			return;
+		}
 
-			renderingConversion.sendComponentInstanceUpdate(component, currentGlobalTransform);
+		Component[] roots = new Component[dirtyRoots.size()];
+		Matrix4f[] startingGlobalTransforms = new Matrix4f[dirtyRoots.size()];
+		for (int i = 0; i < roots.length; i++) {
+			roots[i] = dirtyRoots.get(i);
+			startingGlobalTransforms[i] = getStartingGlobalTransform(dirtyRoots.get(i));
 		}
 
-		// then set the components global transform matrix
-		component.setGlobalTransform(currentGlobalTransform);
-		component.setClean();
+		TransformResolveTask transformResolveTask = new TransformResolveTask(
+				roots, startingGlobalTransforms, 0, roots.length, parallelThreshold);
 
-		// then get all children and run again
-		for (Component child : component.getChildren()) {
-			resolveTransformsAndSend(child, currentGlobalTransform, renderingConversion);
+		// if we are already on one of the pools workers (ie layers are being ticked in parallel) just run it here
+		if (ForkJoinTask.inForkJoinPool()) {
+			transformResolveTask.invoke();
+		} else {
+			forkJoinPool.invoke(transformResolveTask);
 		}
+
+		transformResolveTask.sendInstanceUpdates(renderingConversion);
 	}
 
 	public void resolveGlobalTransforms(Component component, Matrix4f globalTransform) {
-		// first see if the current component is a transform
-		if (component instanceof TransformObject) {
-			// if it is, multiply the global transform by it to get the new most recent transform
-			TransformObject transformObject = (TransformObject) component;
-			globalTransform =
-					Matrix4f.Transform(
-							transformObject.getPosition(),
-							transformObject.getRotation().toMatrix(),
-							transformObject.getScale()).multiply(globalTransform);
-		}
 
-		// now set the dirty flag to clean and set the global transform
-		component.setClean();
-		component.setGlobalTransform(globalTransform);
+		int size = push(0, component, globalTransform);
 
-		// now iterate over children, find dirty and do the same
-		for (Component child : component.getChildren()) {
-			if (child.isDirty()) {
-				resolveGlobalTransforms(child, globalTransform);
+		while (size > 0) {
+
+			size--;
+			Component current = componentStack[size];
+			Matrix4f currentGlobalTransform = matrixStack[size];
+			componentStack[size] = null;
+			matrixStack[size] = null;
+
+			// first see if the current component is a transform
+			if (current instanceof TransformObject) {
+				// if it is, multiply its local TRS by the global transform, straight into the matrix it owns
+				TransformObject transformObject = (TransformObject) current;
+				OwnedMatrix4f ownedGlobalTransform = OwnedMatrix4f.of(current);
+				MatrixMath.multiply(ownedGlobalTransform.localTransform(transformObject), currentGlobalTransform.getValues(), ownedGlobalTransform.getValues());
+				currentGlobalTransform = ownedGlobalTransform;
 			}
+
+			// now set the dirty flag to clean and set the global transform
+			current.setClean();
+			current.setGlobalTransform(currentGlobalTransform);
+
+			// now queue up the dirty children to do the same
+			size = pushChildren(size, current, currentGlobalTransform, true);
 		}
 	}
 
 	public Component getClosestCleanComponent(Component component) {
-		// check it has a parent
+		// keep stepping up while the parent is dirty
+		Component current = component;
+		while (current.getParent() != null && current.getParent().isDirty()) {
+			current = current.getParent();
+		}
+		// if it has a clean parent return that, otherwise it is the root and is dirty, so return it
+		if (current.getParent() != null) {
+			return current.getParent();
+		}
+		return current;
+	}
+
+	// if it is not the root node, the parents global transform is the starting transform
+	static Matrix4f getStartingGlobalTransform(Component component) {
 		if (component.getParent() != null) {
-			// now check if its parent is dirty
-			if (component.getParent().isDirty()) {
-				// if it is, then find its parent transform
-				return getClosestCleanComponent(component.getParent());
+			return component.getParent().getGlobalTransform();
+		}
+		return Matrix4f.Identity;
+	}
+
+	// works out the global transform a component passes down to its children. transforms apply their own TRS,
+	// geometry applies its local transformation, everything else just passes its parents straight through
+	static Matrix4f resolveComponentTransform(Component component, Matrix4f parentGlobalTransform) {
+
+		// if its a transform object, update the currentGlobalTransform
+		if (component.getComponentType().equals(ComponentType.TRANSFORM)) {
+			TransformObject transformObject = (TransformObject) component;
+
+			// multiply straight into the matrix this component owns rather than allocating the product. the local
+			// TRS only gets rebuilt if this transform itself changed, not when it is here because an ancestor moved
+			OwnedMatrix4f globalTransform = OwnedMatrix4f.of(component);
+			MatrixMath.multiply(globalTransform.localTransform(transformObject), parentGlobalTransform.getValues(), globalTransform.getValues());
+			return globalTransform;
+		}
+
+		if (component.getComponentType().equals(ComponentType.GEOMETRY)) {
+			GeometryObject geometryObject = (GeometryObject) component;
+
+			OwnedMatrix4f globalTransform = OwnedMatrix4f.of(component);
+			MatrixMath.multiply(geometryObject.getLocalTransformation().getValues(), parentGlobalTransform.getValues(), globalTransform.getValues());
+			return globalTransform;
+		}
+
+		return parentGlobalTransform;
+	}
+
+	private int pushChildren(int size, Component component, Matrix4f globalTransform, boolean dirtyOnly) {
+
+		int firstChild = size;
+		for (Component child : component.getChildren()) {
+			if (!dirtyOnly || child.isDirty()) {
+				size = push(size, child, globalTransform);
 			}
-			// if it isnt, return this
-			return component.getParent();
 		}
-		// if it doesn't have a parent and it is dirty, return the current component
-		return component;
+
+		// children come off the stack backwards, so flip them to keep the same visiting order as a recursive walk
+		for (int i = firstChild, j = size - 1; i < j; i++, j--) {
+			Component tempComponent = componentStack[i];
+			componentStack[i] = componentStack[j];
+			componentStack[j] = tempComponent;
+			Matrix4f tempMatrix = matrixStack[i];
+			matrixStack[i] = matrixStack[j];
+			matrixStack[j] = tempMatrix;
+		}
+
+		return size;
+	}
+
+	private int push(int size, Component component, Matrix4f globalTransform) {
+		if (size == componentStack.length) {
+			componentStack = Arrays.copyOf(componentStack, size * 2);
+			matrixStack = Arrays.copyOf(matrixStack, size * 2);
+		}
+		componentStack[size] = component;
+		matrixStack[size] = globalTransform;
+		return size + 1;
 	}
 
 }
@@ -0,0 +1,132 @@
+package com.boc_dev.lge_core;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+// open addressing map from instance id to an int slot. no boxing and no entry objects, so lookups and inserts
+// don't allocate once the table has grown to size
+class UuidSlotIndex {
+
+	private UUID[] keys;
+	private int[] slots;
+	private int size = 0;
+
+	UuidSlotIndex(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity *= 2;
+		}
+		this.keys = new UUID[capacity];
+		this.slots = new int[capacity];
+	}
+
+	// returns the slot for the id, or -1 if it isn't in the index
+	int get(UUID id) {
+		int mask = keys.length - 1;
+		int position = hash(id) & mask;
+		while (keys[position] != null) {
+			if (keys[position].equals(id)) {
+				return slots[position];
+			}
+			position = (position + 1) & mask;
+		}
+		return -1;
+	}
+
+	void put(UUID id, int slot) {
+
+		if ((size + 1) * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+
+		int mask = keys.length - 1;
+		int position = hash(id) & mask;
+		while (keys[position] != null) {
+			if (keys[position].equals(id)) {
+				slots[position] = slot;
+				return;
+			}
+			position = (position + 1) & mask;
+		}
+
+		keys[position] = id;
+		slots[position] = slot;
+		size++;
+	}
+
+	// removes the id and returns the slot it had, or -1 if it wasn't in the index
+	int remove(UUID id) {
+
+		int mask = keys.length - 1;
+		int position = hash(id) & mask;
+
+		while (keys[position] != null) {
+
+			if (keys[position].equals(id)) {
+
+				int slot = slots[position];
+
+				// shift the rest of the probe run back so lookups never hit a gap in the middle of it
+				int gap = position;
+				int next = (position + 1) & mask;
+				while (keys[next] != null) {
+					int ideal = hash(keys[next]) & mask;
+					boolean canMove = next > gap
+							? ideal <= gap || ideal > next
+							: ideal <= gap && ideal > next;
+					if (canMove) {
+						keys[gap] = keys[next];
+						slots[gap] = slots[next];
+						gap = next;
+					}
+					next = (next + 1) & mask;
+				}
+				keys[gap] = null;
+				size--;
+
+				return slot;
+			}
+
+			position = (position + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		if (size > 0) {
+			Arrays.fill(keys, null);
+			size = 0;
+		}
+	}
+
+	private void resize(int capacity) {
+
+		UUID[] oldKeys = keys;
+		int[] oldSlots = slots;
+
+		keys = new UUID[capacity];
+		slots = new int[capacity];
+
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int position = hash(oldKeys[i]) & mask;
+				while (keys[position] != null) {
+					position = (position + 1) & mask;
+				}
+				keys[position] = oldKeys[i];
+				slots[position] = oldSlots[i];
+			}
+		}
+	}
+
+	private static int hash(UUID id) {
+		int h = id.hashCode();
+		return h ^ (h >>> 16);
+	}
+}
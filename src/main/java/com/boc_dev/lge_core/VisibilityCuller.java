@@ -0,0 +1,531 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.graphics_library.objects.ProjectionType;
+import com.boc_dev.lge_model.generated.components.CameraObject;
+import com.boc_dev.lge_model.generated.components.GeometryObject;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// works out which geometry instances each camera in a layer can see. every instance is a bounding sphere (its
+// models bounding radius scaled by its global transform) kept in a stack of loose grids, filed by the cell its centre
+// is in and moved between cells as transform resolution moves it. each camera is a cone around its view direction wide
+// enough to cover the corners of the view, and each frame only the cells the cone could touch are looked at.
+// orthographic cameras (ui and 2d layers) aren't culled for, they count as seeing everything in the layer.
+// with cullInstances set, instances no camera can see are taken off the renderer until one can again. until the
+// layer has a camera everything counts as visible. one per render visitor, update thread only
+public class VisibilityCuller {
+
+	// axis the camera looks down in its own space
+	private static final float[] CAMERA_FORWARD = {0, 0, -1};
+
+	// how many times the cell size doubles. instances bigger than the top levels cells go in one last bucket
+	private static final int LEVELS = 24;
+	// cell coordinates have to fit in 21 bits for the key
+	private static final int CELL_LIMIT = (1 << 20) - 1;
+
+	private static final class Entry {
+		private final GeometryObject geometryObject;
+		private final float modelRadius;
+		private final float[] centre = new float[3];
+		private float radius;
+		private int level;
+		private long cell;
+		private int cellIndex = -1;
+		// how many cameras can see it
+		private int visibleCount = 0;
+		private boolean onRenderer = false;
+		private boolean removed = false;
+		private long previousStamp = 0;
+		private long currentStamp = 0;
+		private long touchedStamp = 0;
+
+		private Entry(GeometryObject geometryObject, float modelRadius) {
+			this.geometryObject = geometryObject;
+			this.modelRadius = modelRadius;
+		}
+	}
+
+	private static final class CullCamera {
+		private final float[] position = new float[3];
+		private final float[] forward = new float[3];
+		private final float near;
+		private final float far;
+		private final float sinHalfAngle;
+		private final float cosHalfAngle;
+		// a field of view this wide can't be a cone, so it sees everything out to far in every direction
+		private final boolean wide;
+		// orthographic, whose view is a box the fov says nothing about. nothing is hidden from it
+		private final boolean seesAll;
+		private boolean placed = false;
+		private ArrayList<Entry> visible = new ArrayList<>();
+		private ArrayList<Entry> nextVisible = new ArrayList<>();
+
+		private CullCamera(CameraObject cameraObject) {
+			this.near = Math.max(0, cameraObject.getNear());
+			this.far = cameraObject.getFar();
+			float fov = cameraObject.getFov();
+			float height = cameraObject.getHeight();
+			float aspect = height > 0 ? cameraObject.getWidth() / height : 1;
+			this.seesAll = ProjectionType.valueOf(cameraObject.getCameraProjectionType().toString()) == ProjectionType.ORTHOGRAPHIC;
+			this.wide = fov <= 0 || fov >= 180;
+			// fov is the vertical one, the cone has to reach the corners
+			double halfAngle = wide ? 0 : Math.atan(Math.tan(Math.toRadians(fov) / 2) * Math.sqrt(1 + aspect * aspect));
+			this.sinHalfAngle = (float) Math.sin(halfAngle);
+			this.cosHalfAngle = (float) Math.cos(halfAngle);
+		}
+
+		private void place(float[] transform) {
+			MatrixMath.translation(transform, position);
+			// row vectors, so the local axis goes through the rows of the rotation part
+			float x = CAMERA_FORWARD[0] * transform[0] + CAMERA_FORWARD[1] * transform[4] + CAMERA_FORWARD[2] * transform[8];
+			float y = CAMERA_FORWARD[0] * transform[1] + CAMERA_FORWARD[1] * transform[5] + CAMERA_FORWARD[2] * transform[9];
+			float z = CAMERA_FORWARD[0] * transform[2] + CAMERA_FORWARD[1] * transform[6] + CAMERA_FORWARD[2] * transform[10];
+			float length = (float) Math.sqrt(x * x + y * y + z * z);
+			if (length > 0) {
+				forward[0] = x / length;
+				forward[1] = y / length;
+				forward[2] = z / length;
+			}
+			placed = true;
+		}
+
+		private boolean sees(Entry entry) {
+
+			if (seesAll) {
+				return true;
+			}
+
+			float vx = entry.centre[0] - position[0];
+			float vy = entry.centre[1] - position[1];
+			float vz = entry.centre[2] - position[2];
+			float distanceSquared = vx * vx + vy * vy + vz * vz;
+			float radius = entry.radius;
+
+			if (wide) {
+				return distanceSquared <= (far + radius) * (far + radius);
+			}
+
+			float along = vx * forward[0] + vy * forward[1] + vz * forward[2];
+			if (along > far + radius || along < near - radius) {
+				return false;
+			}
+			// camera is inside it
+			if (distanceSquared <= radius * radius) {
+				return true;
+			}
+			// distance from the centre to the side of the cone
+			float across = (float) Math.sqrt(Math.max(0, distanceSquared - along * along));
+			return across * cosHalfAngle - along * sinHalfAngle <= radius;
+		}
+
+		// radius of a sphere around the middle of the cone that holds all of it
+		private float boundingRadius() {
+			if (wide) {
+				return far;
+			}
+			float capRadius = far * sinHalfAngle / Math.max(cosHalfAngle, 1e-6f);
+			return (float) Math.sqrt(far * far / 4 + capRadius * capRadius);
+		}
+	}
+
+	private final ModelBoundsProvider modelBoundsProvider;
+	private final boolean cullInstances;
+
+	private final IdentityHashMap<GeometryObject, Entry> entries = new IdentityHashMap<>();
+	// one grid per level, each levels cells twice the size of the one below. an instance goes in the finest level
+	// whose cells are at least as big as its radius, so nothing pokes further out of its cell than that levels cell
+	// size, and a few huge instances only widen the search in their own level. the last one is a single bucket for
+	// anything bigger than even the top levels cells, which is always checked
+	private final ArrayList<LongKeyMap<ArrayList<Entry>>> levels = new ArrayList<>();
+	private final float[] levelCellSizes = new float[LEVELS];
+	// in the order they were created, so the first camera keeps its place
+	private final LinkedHashMap<UUID, CullCamera> cameras = new LinkedHashMap<>();
+	// entries whose visible count (or whose reason to be on the renderer) may have changed this frame
+	private final ArrayList<Entry> touched = new ArrayList<>();
+	private final ArrayList<UUID> becameVisible = new ArrayList<>();
+	private final ArrayList<UUID> becameHidden = new ArrayList<>();
+	private long generation = 0;
+	private long frame = 1;
+	private boolean hadCameras = false;
+
+	private volatile VisibilityListener visibilityListener = null;
+
+	// readable from any thread
+	private volatile int trackedInstances = 0;
+	private volatile int visibleInstances = 0;
+	private volatile long sphereTests = 0;
+
+	public VisibilityCuller(float cellSize, ModelBoundsProvider modelBoundsProvider, boolean cullInstances) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("Cell size must be positive, got " + cellSize);
+		}
+		for (int level = 0; level < LEVELS; level++) {
+			levelCellSizes[level] = (float) (cellSize * Math.pow(2, level));
+			levels.add(new LongKeyMap<>(16));
+		}
+		levels.add(new LongKeyMap<>(1));
+		this.modelBoundsProvider = modelBoundsProvider;
+		this.cullInstances = cullInstances;
+	}
+
+	void add(GeometryObject geometryObject, float[] globalTransform) {
+		Entry entry = new Entry(geometryObject, modelBoundsProvider.getBoundingRadius(geometryObject.getModelFile()));
+		// created twice without a delete in between, whatever the renderer has stays until the next update says
+		Entry previous = entries.get(geometryObject);
+		if (previous != null && remove(previous)) {
+			entry.onRenderer = true;
+			visibleInstances++;
+		}
+		entries.put(geometryObject, entry);
+		place(entry, globalTransform);
+		touch(entry);
+		trackedInstances = entries.size();
+	}
+
+	// called with every transform the resolver hands out
+	void move(GeometryObject geometryObject, float[] globalTransform) {
+		Entry entry = entries.get(geometryObject);
+		if (entry != null) {
+			place(entry, globalTransform);
+		}
+	}
+
+	// true if the renderer has it, in which case the caller needs to take it out
+	boolean remove(GeometryObject geometryObject) {
+		Entry entry = entries.get(geometryObject);
+		if (entry == null) {
+			return !cullInstances;
+		}
+		boolean onRenderer = remove(entry);
+		trackedInstances = entries.size();
+		return !cullInstances || onRenderer;
+	}
+
+	// false if it has been culled, so updates for it have nowhere to go
+	boolean isOnRenderer(GeometryObject geometryObject) {
+		if (!cullInstances) {
+			return true;
+		}
+		Entry entry = entries.get(geometryObject);
+		return entry != null && entry.onRenderer;
+	}
+
+	void cameraCreated(CameraObject cameraObject, Matrix4f globalTransform) {
+		CullCamera cullCamera = new CullCamera(cameraObject);
+		cullCamera.place(globalTransform.getValues());
+		CullCamera previous = cameras.put(cameraObject.getUuid(), cullCamera);
+		if (previous != null) {
+			forget(previous);
+		}
+	}
+
+	void cameraMoved(UUID id, Matrix4f globalTransform) {
+		CullCamera cullCamera = cameras.get(id);
+		if (cullCamera != null) {
+			cullCamera.place(globalTransform.getValues());
+		}
+	}
+
+	void cameraRemoved(UUID id) {
+		CullCamera cullCamera = cameras.remove(id);
+		if (cullCamera != null) {
+			forget(cullCamera);
+		}
+	}
+
+	// works out what every camera can see now, tells the listener what changed, and (if culling) hands over the
+	// instances that need to go back on the renderer and the ones that need taking off it
+	void update(String layerName, Consumer<GeometryObject> reveal, Consumer<GeometryObject> hide) {
+
+		VisibilityListener listener = visibilityListener;
+
+		for (Map.Entry<UUID, CullCamera> cameraEntry : cameras.entrySet()) {
+			CullCamera cullCamera = cameraEntry.getValue();
+			if (cullCamera.placed) {
+				evaluate(cullCamera);
+				if (listener != null && (!becameVisible.isEmpty() || !becameHidden.isEmpty())) {
+					listener.onVisibilityChanged(layerName, cameraEntry.getKey(), becameVisible, becameHidden);
+				}
+			}
+			becameVisible.clear();
+			becameHidden.clear();
+		}
+
+		// gaining the first camera or losing the last changes the answer for everything
+		boolean hasCameras = !cameras.isEmpty();
+		if (hasCameras != hadCameras) {
+			hadCameras = hasCameras;
+			for (Entry entry : entries.values()) {
+				touch(entry);
+			}
+		}
+
+		int visible = visibleInstances;
+		for (Entry entry : touched) {
+			if (entry.removed) {
+				continue;
+			}
+			boolean wanted = !hasCameras || entry.visibleCount > 0;
+			if (wanted == entry.onRenderer) {
+				continue;
+			}
+			entry.onRenderer = wanted;
+			if (wanted) {
+				visible++;
+				if (cullInstances) {
+					reveal.accept(entry.geometryObject);
+				}
+			} else {
+				visible--;
+				if (cullInstances) {
+					hide.accept(entry.geometryObject);
+				}
+			}
+		}
+		touched.clear();
+		frame++;
+		visibleInstances = visible;
+	}
+
+	public void setVisibilityListener(VisibilityListener visibilityListener) {
+		this.visibilityListener = visibilityListener;
+	}
+
+	public boolean isCullingInstances() {
+		return cullInstances;
+	}
+
+	public int getTrackedInstances() {
+		return trackedInstances;
+	}
+
+	// seen by at least one camera (or everything, if there are no cameras)
+	public int getVisibleInstances() {
+		return visibleInstances;
+	}
+
+	public int getCulledInstances() {
+		return trackedInstances - visibleInstances;
+	}
+
+	// sphere against cone tests done, ie how much the grid is saving over testing everything
+	public long getSphereTests() {
+		return sphereTests;
+	}
+
+	private void evaluate(CullCamera cullCamera) {
+
+		long stamp = ++generation;
+
+		for (Entry entry : cullCamera.visible) {
+			entry.previousStamp = stamp;
+		}
+
+		long tests = 0;
+		float boundingRadius = cullCamera.boundingRadius();
+		float middle = cullCamera.wide ? 0 : cullCamera.far / 2;
+		float middleX = cullCamera.position[0] + cullCamera.forward[0] * middle;
+		float middleY = cullCamera.position[1] + cullCamera.forward[1] * middle;
+		float middleZ = cullCamera.position[2] + cullCamera.forward[2] * middle;
+
+		for (int level = 0; level <= LEVELS; level++) {
+
+			LongKeyMap<ArrayList<Entry>> cells = levels.get(level);
+			if (cells.isEmpty()) {
+				continue;
+			}
+
+			if (level == LEVELS || cullCamera.seesAll) {
+				tests += evaluateAll(cullCamera, cells, stamp);
+				continue;
+			}
+
+			// the grid is loose, anything in this level can poke up to a cell size out of its cell
+			float reach = boundingRadius + levelCellSizes[level];
+			int minX = cellOf(middleX - reach, level);
+			int maxX = cellOf(middleX + reach, level);
+			int minY = cellOf(middleY - reach, level);
+			int maxY = cellOf(middleY + reach, level);
+			int minZ = cellOf(middleZ - reach, level);
+			int maxZ = cellOf(middleZ + reach, level);
+
+			// a long view over a sparse scene covers more cells than are actually in use, so just go through those
+			if (moreCellsThan(cells.size(), maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1)) {
+				tests += evaluateAll(cullCamera, cells, stamp);
+			} else {
+				for (int x = minX; x <= maxX; x++) {
+					for (int y = minY; y <= maxY; y++) {
+						for (int z = minZ; z <= maxZ; z++) {
+							ArrayList<Entry> cell = cells.get(key(x, y, z));
+							if (cell != null) {
+								tests += evaluate(cullCamera, cell, stamp);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		for (Entry entry : cullCamera.visible) {
+			if (entry.currentStamp != stamp && !entry.removed) {
+				entry.visibleCount--;
+				touch(entry);
+				becameHidden.add(entry.geometryObject.getUuid());
+			}
+		}
+
+		ArrayList<Entry> previous = cullCamera.visible;
+		cullCamera.visible = cullCamera.nextVisible;
+		cullCamera.nextVisible = previous;
+		previous.clear();
+
+		sphereTests += tests;
+	}
+
+	private int evaluateAll(CullCamera cullCamera, LongKeyMap<ArrayList<Entry>> cells, long stamp) {
+		int tests = 0;
+		for (int slot = 0; slot < cells.capacity(); slot++) {
+			ArrayList<Entry> cell = cells.valueAt(slot);
+			if (cell != null) {
+				tests += evaluate(cullCamera, cell, stamp);
+			}
+		}
+		return tests;
+	}
+
+	private int evaluate(CullCamera cullCamera, ArrayList<Entry> cell, long stamp) {
+		for (Entry entry : cell) {
+			if (cullCamera.sees(entry)) {
+				entry.currentStamp = stamp;
+				cullCamera.nextVisible.add(entry);
+				if (entry.previousStamp != stamp) {
+					entry.visibleCount++;
+					touch(entry);
+					becameVisible.add(entry.geometryObject.getUuid());
+				}
+			}
+		}
+		return cell.size();
+	}
+
+	// camera has gone, so it no longer counts towards anything it could see
+	private void forget(CullCamera cullCamera) {
+		for (Entry entry : cullCamera.visible) {
+			if (!entry.removed) {
+				entry.visibleCount--;
+				touch(entry);
+			}
+		}
+		cullCamera.visible.clear();
+	}
+
+	private boolean remove(Entry entry) {
+		entries.remove(entry.geometryObject);
+		removeFromCell(entry);
+		entry.removed = true;
+		if (entry.onRenderer) {
+			visibleInstances--;
+		}
+		return entry.onRenderer;
+	}
+
+	private void place(Entry entry, float[] transform) {
+
+		MatrixMath.translation(transform, entry.centre);
+
+		// biggest scale on any axis, so the sphere still holds it however it has been stretched
+		float scaleSquared = 0;
+		for (int row = 0; row < 3; row++) {
+			int r = row * 4;
+			scaleSquared = Math.max(scaleSquared, transform[r] * transform[r] + transform[r + 1] * transform[r + 1] + transform[r + 2] * transform[r + 2]);
+		}
+		entry.radius = entry.modelRadius * (float) Math.sqrt(scaleSquared);
+
+		int level = levelOf(entry.radius);
+		long cell = level == LEVELS
+				? 0
+				: key(cellOf(entry.centre[0], level), cellOf(entry.centre[1], level), cellOf(entry.centre[2], level));
+		if (entry.cellIndex >= 0 && level == entry.level && cell == entry.cell) {
+			return;
+		}
+
+		removeFromCell(entry);
+		LongKeyMap<ArrayList<Entry>> cells = levels.get(level);
+		ArrayList<Entry> entriesInCell = cells.get(cell);
+		if (entriesInCell == null) {
+			entriesInCell = new ArrayList<>();
+			cells.put(cell, entriesInCell);
+		}
+		entry.level = level;
+		entry.cell = cell;
+		entry.cellIndex = entriesInCell.size();
+		entriesInCell.add(entry);
+	}
+
+	// swaps the last entry of the cell into its place
+	private void removeFromCell(Entry entry) {
+		if (entry.cellIndex < 0) {
+			return;
+		}
+		LongKeyMap<ArrayList<Entry>> cells = levels.get(entry.level);
+		ArrayList<Entry> entriesInCell = cells.get(entry.cell);
+		Entry last = entriesInCell.remove(entriesInCell.size() - 1);
+		if (last != entry) {
+			entriesInCell.set(entry.cellIndex, last);
+			last.cellIndex = entry.cellIndex;
+		}
+		if (entriesInCell.isEmpty()) {
+			cells.remove(entry.cell);
+		}
+		entry.cellIndex = -1;
+	}
+
+	private void touch(Entry entry) {
+		if (entry.touchedStamp != frame) {
+			entry.touchedStamp = frame;
+			touched.add(entry);
+		}
+	}
+
+	// finest level whose cells are at least as big as the radius, LEVELS if there isn't one
+	private int levelOf(float radius) {
+		int level = 0;
+		while (level < LEVELS && radius > levelCellSizes[level]) {
+			level++;
+		}
+		return level;
+	}
+
+	// clamped to what fits in the key. anything further out shares the edge cells, which only costs extra sphere
+	// tests, as the search range is clamped the same way and so still reaches them
+	private int cellOf(float position, int level) {
+		double cell = Math.floor(position / levelCellSizes[level]);
+		return (int) Math.max(-CELL_LIMIT - 1, Math.min(CELL_LIMIT, cell));
+	}
+
+	// each span is at most 2^21 cells, so all three multiplied together can overflow a long. checked an axis at a
+	// time instead, and as the count so far never goes over the cells in use (an int) before the next multiply, it
+	// can't overflow
+	private static boolean moreCellsThan(int cellsInUse, int spanX, int spanY, int spanZ) {
+		long cellsInRange = spanX;
+		if (cellsInRange > cellsInUse) {
+			return true;
+		}
+		cellsInRange *= spanY;
+		if (cellsInRange > cellsInUse) {
+			return true;
+		}
+		return cellsInRange * spanZ > cellsInUse;
+	}
+
+	// 21 bits a axis, cell coordinates are always in range
+	private static long key(int x, int y, int z) {
+		return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+	}
+}
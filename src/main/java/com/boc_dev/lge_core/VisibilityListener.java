@@ -0,0 +1,12 @@
+package com.boc_dev.lge_core;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface VisibilityListener {
+
+	// called from the layers update thread during send(), once per camera whose visible set changed this frame.
+	// the lists are reused, so copy them before returning if they are needed later
+	void onVisibilityChanged(String layerName, UUID cameraId, List<UUID> becameVisible, List<UUID> becameHidden);
+
+}
@@ -0,0 +1,77 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.busses.GameBus;
+import com.boc_dev.event_bus.interfaces.Event;
+import com.boc_dev.graphics_library.Window;
+import com.boc_dev.graphics_library.WindowInitialisationParameters;
+import com.boc_dev.graphics_library.objects.render_scene.Scene;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+
+// renders into a graphics_library window on its own thread. render events go out on the render bus the window
+// is subscribed to
+public class WindowRenderSink implements RenderSink {
+
+	private final WindowInitialisationParameters wip;
+	private GameBus renderGameBus;
+	private Window window;
+
+	public WindowRenderSink(WindowInitialisationParameters wip) {
+		this.wip = wip;
+	}
+
+	@Override
+	public void attach(GameBus renderGameBus, ArrayList<SceneLayer> sceneLayers) {
+
+		this.renderGameBus = renderGameBus;
+
+		ArrayList<Scene> scenes = new ArrayList<>();
+		for (SceneLayer sceneLayer : sceneLayers) {
+			scenes.add(sceneLayer.getScene());
+		}
+
+		this.window = new Window(scenes, renderGameBus);
+
+		renderGameBus.register(window);
+		for (SceneLayer sceneLayer : sceneLayers) {
+			sceneLayer.getGameBus().register(window);
+		}
+	}
+
+	@Override
+	public void init() throws IOException, URISyntaxException {
+		window.init(wip);
+	}
+
+	@Override
+	public void accept(Event<?> event) {
+		renderGameBus.dispatch(event);
+	}
+
+	@Override
+	public void renderFrame() {
+		window.render();
+	}
+
+	@Override
+	public boolean shouldClose() {
+		return window.shouldClose();
+	}
+
+	@Override
+	public void close() {
+		window.close();
+	}
+
+	@Override
+	public void setTitle(String title) {
+		window.setTitle(title);
+	}
+
+	@Override
+	public boolean needsRenderThread() {
+		return true;
+	}
+}
@@ -0,0 +1,121 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.maths.objects.QuaternionF;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+import com.boc_dev.maths.objects.vector.Vec3f;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the in place matrix operations have to give the same answers as the Matrix4f ones they stand in for
+class MatrixMathTest {
+
+	private static final int ROUNDS = 1000;
+	private static final float EPSILON = 1e-3f;
+
+	@Test
+	void multiplyMatchesMatrix4f() {
+		Random random = new Random(7);
+		float[] out = new float[16];
+		for (int i = 0; i < ROUNDS; i++) {
+			float[] a = randomValues(random);
+			float[] b = randomValues(random);
+
+			float[] expected = new Matrix4f(a.clone()).multiply(new Matrix4f(b.clone())).getValues();
+			MatrixMath.multiply(a, b, out);
+
+			assertArrayEquals(expected, out, EPSILON, "round " + i);
+		}
+	}
+
+	@Test
+	void multiplyLeavesItsInputsAlone() {
+		Random random = new Random(11);
+		float[] a = randomValues(random);
+		float[] b = randomValues(random);
+		float[] aBefore = a.clone();
+		float[] bBefore = b.clone();
+
+		MatrixMath.multiply(a, b, new float[16]);
+
+		assertArrayEquals(aBefore, a);
+		assertArrayEquals(bBefore, b);
+	}
+
+	@Test
+	void transposeMatchesMatrix4f() {
+		Random random = new Random(13);
+		float[] out = new float[32];
+		FloatBuffer buffer = ByteBuffer.allocateDirect(32 * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+		float[] fromBuffer = new float[16];
+		for (int i = 0; i < ROUNDS; i++) {
+			float[] values = randomValues(random);
+			float[] expected = new Matrix4f(values.clone()).transpose().getValues();
+
+			// written part way into something bigger, the way the instance batches use it
+			MatrixMath.transpose(values, out, 16);
+			MatrixMath.transpose(values, buffer, 16);
+			for (int j = 0; j < 16; j++) {
+				fromBuffer[j] = buffer.get(16 + j);
+			}
+
+			assertArrayEquals(expected, Arrays.copyOfRange(out, 16, 32), "round " + i);
+			assertArrayEquals(expected, fromBuffer, "round " + i);
+			assertEquals(0, buffer.position());
+		}
+	}
+
+	@Test
+	void transformMatchesMatrix4f() {
+		Random random = new Random(17);
+		float[] out = new float[16];
+		for (int i = 0; i < ROUNDS; i++) {
+			Vec3f position = randomVector(random, -10, 10);
+			Vec3f scale = randomVector(random, 0.1f, 5);
+			// the library builds its rotation matrix assuming a unit quaternion, so only compare against those
+			float w = random.nextFloat() * 2 - 1;
+			float x = random.nextFloat() * 2 - 1;
+			float y = random.nextFloat() * 2 - 1;
+			float z = random.nextFloat() * 2 - 1;
+			float length = (float) Math.sqrt(w * w + x * x + y * y + z * z);
+			QuaternionF rotation = new QuaternionF(w / length, x / length, y / length, z / length);
+
+			float[] expected = Matrix4f.Transform(position, rotation.toMatrix(), scale).getValues();
+			MatrixMath.transform(position, rotation, scale, out);
+
+			assertArrayEquals(expected, out, EPSILON, "round " + i);
+		}
+	}
+
+	@Test
+	void transformWithoutRotationMatchesMatrix4f() {
+		Vec3f position = new Vec3f(1, -2, 3);
+		Vec3f scale = new Vec3f(2, 0.5f, 4);
+		float[] out = new float[16];
+
+		MatrixMath.transform(position, QuaternionF.Identity, scale, out);
+
+		assertArrayEquals(Matrix4f.Transform(position, QuaternionF.Identity.toMatrix(), scale).getValues(), out, EPSILON);
+	}
+
+	private static Vec3f randomVector(Random random, float min, float max) {
+		return new Vec3f(
+				min + random.nextFloat() * (max - min),
+				min + random.nextFloat() * (max - min),
+				min + random.nextFloat() * (max - min));
+	}
+
+	private static float[] randomValues(Random random) {
+		float[] values = new float[16];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextFloat() * 20 - 10;
+		}
+		return values;
+	}
+}
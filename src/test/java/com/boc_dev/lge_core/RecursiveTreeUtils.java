@@ -0,0 +1,89 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.lge_model.gcs.Component;
+import com.boc_dev.lge_model.generated.components.ComponentType;
+import com.boc_dev.lge_model.generated.components.GeometryObject;
+import com.boc_dev.lge_model.generated.components.TransformObject;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+
+// the original recursive tree walks, kept as they were so the iterative versions in TreeUtils have something to
+// be checked against
+class RecursiveTreeUtils {
+
+	TransformObject findRootDirtyTransform(Component component) {
+		if (component.getParent() != null) {
+			TransformObject returnedComponent = findRootDirtyTransform(component.getParent());
+			if (returnedComponent != null) {
+				return returnedComponent;
+			}
+			if (component.getComponentType().equals(ComponentType.TRANSFORM) && component.isDirty()) {
+				return (TransformObject) component;
+			}
+			return null;
+		}
+		else if (component.getComponentType().equals(ComponentType.TRANSFORM) && component.isDirty()) {
+			return (TransformObject) component;
+		}
+		else {
+			return null;
+		}
+	}
+
+	void resolveTransformsAndSend(Component component, Matrix4f currentGlobalTransform, RenderingConversion renderingConversion) {
+
+		if (component.getComponentType().equals(ComponentType.TRANSFORM)) {
+			TransformObject transformObject = (TransformObject) component;
+
+			currentGlobalTransform = Matrix4f.Transform(
+					transformObject.getPosition(),
+					transformObject.getRotation().toMatrix(),
+					transformObject.getScale()).multiply(currentGlobalTransform);
+		}
+		else if (component.getComponentType().isRender()) {
+
+			if (component.getComponentType().equals(ComponentType.GEOMETRY)) {
+				GeometryObject geometryObject = (GeometryObject) component;
+				currentGlobalTransform = geometryObject.getLocalTransformation().multiply(currentGlobalTransform);
+			}
+
+			renderingConversion.sendComponentInstanceUpdate(component, currentGlobalTransform);
+		}
+
+		component.setGlobalTransform(currentGlobalTransform);
+		component.setClean();
+
+		for (Component child : component.getChildren()) {
+			resolveTransformsAndSend(child, currentGlobalTransform, renderingConversion);
+		}
+	}
+
+	void resolveGlobalTransforms(Component component, Matrix4f globalTransform) {
+		if (component instanceof TransformObject) {
+			TransformObject transformObject = (TransformObject) component;
+			globalTransform =
+					Matrix4f.Transform(
+							transformObject.getPosition(),
+							transformObject.getRotation().toMatrix(),
+							transformObject.getScale()).multiply(globalTransform);
+		}
+
+		component.setClean();
+		component.setGlobalTransform(globalTransform);
+
+		for (Component child : component.getChildren()) {
+			if (child.isDirty()) {
+				resolveGlobalTransforms(child, globalTransform);
+			}
+		}
+	}
+
+	Component getClosestCleanComponent(Component component) {
+		if (component.getParent() != null) {
+			if (component.getParent().isDirty()) {
+				return getClosestCleanComponent(component.getParent());
+			}
+			return component.getParent();
+		}
+		return component;
+	}
+}
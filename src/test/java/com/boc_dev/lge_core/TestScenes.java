@@ -0,0 +1,142 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.event_bus.interfaces.Event;
+import com.boc_dev.graphics_library.objects.lighting.Fog;
+import com.boc_dev.lge_model.gcs.Component;
+import com.boc_dev.lge_model.gcs.Registry;
+import com.boc_dev.lge_model.generated.components.GeometryBuilder;
+import com.boc_dev.lge_model.generated.components.GeometryObject;
+import com.boc_dev.lge_model.generated.components.TransformBuilder;
+import com.boc_dev.lge_model.generated.components.TransformObject;
+import com.boc_dev.maths.objects.QuaternionF;
+import com.boc_dev.maths.objects.vector.Vec3f;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+
+// small deterministic scenes for the tree walk tests. building twice with the same shape and seed gives two
+// scenes with the same layout, positions and component order, so a walk run on one can be compared to a
+// different walk run on the other
+final class TestScenes {
+
+	enum Shape {
+		// one parent child chain of transforms, a geometry hanging off each one
+		CHAIN,
+		// one root transform with every other transform directly under it
+		FAN_OUT,
+		// a few roots, every new transform goes under a random earlier one
+		RANDOM_FOREST
+	}
+
+	static final class TestScene {
+		final SceneLayer sceneLayer;
+		// every component in the order it was made, so the same index is the same component in a twin scene
+		final ArrayList<Component> components = new ArrayList<>();
+		final ArrayList<TransformObject> transforms = new ArrayList<>();
+		final ArrayList<TransformObject> roots = new ArrayList<>();
+
+		private TestScene(SceneLayer sceneLayer) {
+			this.sceneLayer = sceneLayer;
+		}
+
+		int indexOf(Component component) {
+			for (int i = 0; i < components.size(); i++) {
+				if (components.get(i) == component) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		// applies the queued updates (parents, moves) to the registry
+		void update() {
+			sceneLayer.getRegistryUpdater().run(1);
+		}
+	}
+
+	static final FrameEventWriter DISCARDING_WRITER = new FrameEventWriter() {
+		@Override
+		public void write(Event<?> event) {
+		}
+
+		@Override
+		public void writeInterpolated(InstanceBatch instanceBatch, String layerName) {
+		}
+
+		@Override
+		public void writeStreamed(InstanceBatch instanceBatch, String layerName) {
+		}
+	};
+
+	private TestScenes() {
+	}
+
+	static TestScene build(Shape shape, int transformCount, long seed) {
+
+		TestScene scene = new TestScene(
+				new SceneLayer("test", Vec3f.ONE, new Fog(false, new Vec3f(0, 0, 0), 0)));
+		Registry registry = scene.sceneLayer.getRegistry();
+		UUID material = new com.boc_dev.lge_model.generated.components.MaterialBuilder().build(registry).getUuid();
+		Random random = new Random(seed);
+
+		for (int i = 0; i < transformCount; i++) {
+
+			TransformObject parent = null;
+			switch (shape) {
+				case CHAIN:
+					parent = i == 0 ? null : scene.transforms.get(i - 1);
+					break;
+				case FAN_OUT:
+					parent = i == 0 ? null : scene.transforms.get(0);
+					break;
+				case RANDOM_FOREST:
+					parent = i < 3 ? null : scene.transforms.get(random.nextInt(i));
+					break;
+			}
+
+			TransformObject transformObject = transform(registry, random);
+			scene.components.add(transformObject);
+			scene.transforms.add(transformObject);
+			if (parent == null) {
+				scene.roots.add(transformObject);
+			} else {
+				setParent(transformObject, parent);
+			}
+
+			GeometryObject geometryObject = new GeometryBuilder("DEFAULT_CUBE")
+					.setMaterial(material)
+					.build(registry);
+			scene.components.add(geometryObject);
+			setParent(geometryObject, transformObject);
+		}
+
+		scene.update();
+		return scene;
+	}
+
+	// moves every stride'th transform, starting from offset. the moves only land on the next update
+	static void move(TestScene scene, int offset, int stride, long seed) {
+		Random random = new Random(seed);
+		for (int i = offset; i < scene.transforms.size(); i += stride) {
+			scene.transforms.get(i).getUpdater().setPosition(randomVector(random)).sendUpdate();
+		}
+	}
+
+	private static TransformObject transform(Registry registry, Random random) {
+		// non uniform scale so getting the multiply order wrong shows up in the translations
+		return new TransformBuilder()
+				.setPosition(randomVector(random))
+				.setRotation(QuaternionF.Identity)
+				.setScale(new Vec3f(0.5f + random.nextFloat(), 0.5f + random.nextFloat(), 0.5f + random.nextFloat()))
+				.build(registry);
+	}
+
+	private static Vec3f randomVector(Random random) {
+		return new Vec3f(random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5);
+	}
+
+	private static void setParent(Component child, Component parent) {
+		child.getUpdater().setParent(parent).sendUpdate();
+	}
+}
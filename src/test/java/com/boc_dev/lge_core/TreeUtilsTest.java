@@ -0,0 +1,320 @@
+package com.boc_dev.lge_core;
+
+import com.boc_dev.lge_model.gcs.Component;
+import com.boc_dev.lge_model.generated.components.TransformObject;
+import com.boc_dev.maths.objects.matrix.Matrix4f;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// checks the iterative tree walks in TreeUtils against the recursive ones they replaced. every test builds the
+// same scene twice, runs the old walk on one and the new walk on the other, then compares what came out
+class TreeUtilsTest {
+
+	private static final int TRANSFORMS = 200;
+	private static final long SEED = 42;
+	private static final float EPSILON = 1e-4f;
+
+	private final RecursiveTreeUtils recursiveTreeUtils = new RecursiveTreeUtils();
+	private final TreeUtils treeUtils = new TreeUtils();
+	private ForkJoinPool forkJoinPool;
+
+	@BeforeEach
+	void setUp() {
+		forkJoinPool = new ForkJoinPool(4);
+	}
+
+	@AfterEach
+	void tearDown() {
+		forkJoinPool.shutdownNow();
+	}
+
+	@Test
+	void findRootDirtyTransformOnAllDirtyTrees() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+			assertSameRootDirtyTransforms(TestScenes.build(shape, TRANSFORMS, SEED));
+		}
+	}
+
+	@Test
+	void findRootDirtyTransformOnMixedTrees() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+			TestScenes.TestScene scene = mixedScene(shape);
+			assertSameRootDirtyTransforms(scene);
+		}
+	}
+
+	@Test
+	void findRootDirtyTransformOnCleanTrees() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+			TestScenes.TestScene scene = TestScenes.build(shape, TRANSFORMS, SEED);
+			resolveAllRecursively(scene);
+			for (Component component : scene.components) {
+				assertNull(treeUtils.findRootDirtyTransform(component));
+			}
+		}
+	}
+
+	@Test
+	void getClosestCleanComponentOnAllDirtyTrees() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+			assertSameClosestCleanComponents(TestScenes.build(shape, TRANSFORMS, SEED));
+		}
+	}
+
+	@Test
+	void getClosestCleanComponentOnMixedTrees() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+			assertSameClosestCleanComponents(mixedScene(shape));
+		}
+	}
+
+	@Test
+	void resolveTransformsAndSendOnAllDirtyTrees() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+			assertSameResolveAndSend(
+					TestScenes.build(shape, TRANSFORMS, SEED),
+					TestScenes.build(shape, TRANSFORMS, SEED));
+		}
+	}
+
+	@Test
+	void resolveTransformsAndSendOnMixedTrees() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+			assertSameResolveAndSend(mixedScene(shape), mixedScene(shape));
+		}
+	}
+
+	@Test
+	void resolveTransformsAndSendInParallel() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+
+			TestScenes.TestScene expected = mixedScene(shape);
+			TestScenes.TestScene actual = mixedScene(shape);
+
+			RecordingConversion expectedSends = new RecordingConversion();
+			for (TransformObject root : dirtyRoots(expected)) {
+				recursiveTreeUtils.resolveTransformsAndSend(root, startingTransform(root), expectedSends);
+			}
+
+			// threshold of 1 so everything gets split over the pool. the workers order is not fixed, so only
+			// what was sent for each component is compared
+			RecordingConversion actualSends = new RecordingConversion();
+			treeUtils.resolveTransformsAndSend(dirtyRoots(actual), actualSends, forkJoinPool, 1);
+
+			assertEquals(expectedSends.sentComponents.size(), actualSends.sentComponents.size(), shape.name());
+			HashMap<Integer, float[]> expectedByIndex = expectedSends.byIndex(expected);
+			HashMap<Integer, float[]> actualByIndex = actualSends.byIndex(actual);
+			assertEquals(expectedByIndex.keySet(), actualByIndex.keySet(), shape.name());
+			for (Integer index : expectedByIndex.keySet()) {
+				assertArrayEquals(expectedByIndex.get(index), actualByIndex.get(index), EPSILON, shape.name() + " component " + index);
+			}
+			assertSameGlobalTransforms(expected, actual);
+		}
+	}
+
+	@Test
+	void resolveGlobalTransformsOnAllDirtyTrees() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+			assertSameResolveGlobal(
+					TestScenes.build(shape, TRANSFORMS, SEED),
+					TestScenes.build(shape, TRANSFORMS, SEED));
+		}
+	}
+
+	@Test
+	void resolveGlobalTransformsOnMixedTrees() {
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+			assertSameResolveGlobal(mixedScene(shape), mixedScene(shape));
+		}
+	}
+
+	@Test
+	void resolveGlobalTransformsTwiceOnTheSameTree() {
+		// the second pass writes into the matrices the first pass left behind, so check it still comes out the
+		// same as resolving from scratch
+		for (TestScenes.Shape shape : TestScenes.Shape.values()) {
+
+			TestScenes.TestScene expected = TestScenes.build(shape, TRANSFORMS, SEED);
+			TestScenes.TestScene actual = TestScenes.build(shape, TRANSFORMS, SEED);
+			for (TransformObject root : actual.roots) {
+				treeUtils.resolveGlobalTransforms(root, Matrix4f.Identity);
+			}
+
+			resolveAllRecursively(expected);
+			TestScenes.move(expected, 1, 4, SEED + 1);
+			expected.update();
+			TestScenes.move(actual, 1, 4, SEED + 1);
+			actual.update();
+
+			for (int i = 0; i < expected.components.size(); i++) {
+				Component expectedComponent = expected.components.get(i);
+				if (expectedComponent.isDirty()) {
+					Component root = recursiveTreeUtils.getClosestCleanComponent(expectedComponent);
+					recursiveTreeUtils.resolveGlobalTransforms(root, startingTransform(root));
+				}
+				Component actualComponent = actual.components.get(i);
+				if (actualComponent.isDirty()) {
+					Component root = treeUtils.getClosestCleanComponent(actualComponent);
+					treeUtils.resolveGlobalTransforms(root, startingTransform(root));
+				}
+			}
+
+			assertSameGlobalTransforms(expected, actual);
+		}
+	}
+
+	// a fully resolved tree with some transforms moved, so parts of it are dirty again and parts are clean
+	private TestScenes.TestScene mixedScene(TestScenes.Shape shape) {
+		TestScenes.TestScene scene = TestScenes.build(shape, TRANSFORMS, SEED);
+		resolveAllRecursively(scene);
+		TestScenes.move(scene, 3, 7, SEED + 1);
+		scene.update();
+		return scene;
+	}
+
+	private void resolveAllRecursively(TestScenes.TestScene scene) {
+		for (TransformObject root : scene.roots) {
+			recursiveTreeUtils.resolveGlobalTransforms(root, Matrix4f.Identity);
+		}
+	}
+
+	// one entry per dirty subtree, in the order the transforms were made
+	private List<TransformObject> dirtyRoots(TestScenes.TestScene scene) {
+		ArrayList<TransformObject> dirtyRoots = new ArrayList<>();
+		for (TransformObject transformObject : scene.transforms) {
+			TransformObject dirtyRoot = recursiveTreeUtils.findRootDirtyTransform(transformObject);
+			if (dirtyRoot != null && !containsSame(dirtyRoots, dirtyRoot)) {
+				dirtyRoots.add(dirtyRoot);
+			}
+		}
+		return dirtyRoots;
+	}
+
+	private static boolean containsSame(List<? extends Component> components, Component component) {
+		for (Component other : components) {
+			if (other == component) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Matrix4f startingTransform(Component component) {
+		if (component.getParent() != null) {
+			return component.getParent().getGlobalTransform();
+		}
+		return Matrix4f.Identity;
+	}
+
+	private void assertSameRootDirtyTransforms(TestScenes.TestScene scene) {
+		for (int i = 0; i < scene.components.size(); i++) {
+			Component component = scene.components.get(i);
+			assertEquals(
+					scene.indexOf(recursiveTreeUtils.findRootDirtyTransform(component)),
+					scene.indexOf(treeUtils.findRootDirtyTransform(component)),
+					"component " + i);
+		}
+	}
+
+	private void assertSameClosestCleanComponents(TestScenes.TestScene scene) {
+		for (int i = 0; i < scene.components.size(); i++) {
+			Component component = scene.components.get(i);
+			assertEquals(
+					scene.indexOf(recursiveTreeUtils.getClosestCleanComponent(component)),
+					scene.indexOf(treeUtils.getClosestCleanComponent(component)),
+					"component " + i);
+		}
+	}
+
+	private void assertSameResolveAndSend(TestScenes.TestScene expected, TestScenes.TestScene actual) {
+
+		RecordingConversion expectedSends = new RecordingConversion();
+		for (TransformObject root : dirtyRoots(expected)) {
+			recursiveTreeUtils.resolveTransformsAndSend(root, startingTransform(root), expectedSends);
+		}
+
+		RecordingConversion actualSends = new RecordingConversion();
+		for (TransformObject root : dirtyRoots(actual)) {
+			treeUtils.resolveTransformsAndSend(root, TreeUtils.getStartingGlobalTransform(root), actualSends);
+		}
+
+		// single threaded the updates should come out in exactly the same order
+		assertEquals(expectedSends.sentComponents.size(), actualSends.sentComponents.size());
+		for (int i = 0; i < expectedSends.sentComponents.size(); i++) {
+			assertEquals(
+					expected.indexOf(expectedSends.sentComponents.get(i)),
+					actual.indexOf(actualSends.sentComponents.get(i)),
+					"update " + i);
+			assertArrayEquals(expectedSends.sentTransforms.get(i), actualSends.sentTransforms.get(i), EPSILON, "update " + i);
+		}
+
+		assertSameGlobalTransforms(expected, actual);
+	}
+
+	private void assertSameResolveGlobal(TestScenes.TestScene expected, TestScenes.TestScene actual) {
+
+		// the same way the render visitor resolves a dirty component it is about to send
+		for (int i = 0; i < expected.components.size(); i++) {
+			Component expectedComponent = expected.components.get(i);
+			if (expectedComponent.isDirty()) {
+				Component root = recursiveTreeUtils.getClosestCleanComponent(expectedComponent);
+				recursiveTreeUtils.resolveGlobalTransforms(root, startingTransform(root));
+			}
+			Component actualComponent = actual.components.get(i);
+			if (actualComponent.isDirty()) {
+				Component root = treeUtils.getClosestCleanComponent(actualComponent);
+				treeUtils.resolveGlobalTransforms(root, startingTransform(root));
+			}
+		}
+
+		assertSameGlobalTransforms(expected, actual);
+	}
+
+	private static void assertSameGlobalTransforms(TestScenes.TestScene expected, TestScenes.TestScene actual) {
+		for (int i = 0; i < expected.components.size(); i++) {
+			Component expectedComponent = expected.components.get(i);
+			Component actualComponent = actual.components.get(i);
+			assertEquals(expectedComponent.isDirty(), actualComponent.isDirty(), "component " + i);
+			Matrix4f expectedTransform = expectedComponent.getGlobalTransform();
+			Matrix4f actualTransform = actualComponent.getGlobalTransform();
+			if (expectedTransform == null || actualTransform == null) {
+				assertSame(expectedTransform, actualTransform, "component " + i);
+			} else {
+				assertArrayEquals(expectedTransform.getValues(), actualTransform.getValues(), EPSILON, "component " + i);
+			}
+		}
+	}
+
+	// keeps a copy of every instance update, the iterative walk reuses the matrices it sends
+	private static final class RecordingConversion extends RenderingConversion {
+
+		private final ArrayList<Component> sentComponents = new ArrayList<>();
+		private final ArrayList<float[]> sentTransforms = new ArrayList<>();
+
+		RecordingConversion() {
+			super(TestScenes.DISCARDING_WRITER, "test");
+		}
+
+		@Override
+		public void sendComponentInstanceUpdate(Component component, Matrix4f newTransform) {
+			sentComponents.add(component);
+			sentTransforms.add(newTransform.getValues().clone());
+		}
+
+		HashMap<Integer, float[]> byIndex(TestScenes.TestScene scene) {
+			HashMap<Integer, float[]> byIndex = new HashMap<>();
+			for (int i = 0; i < sentComponents.size(); i++) {
+				byIndex.put(scene.indexOf(sentComponents.get(i)), sentTransforms.get(i));
+			}
+			return byIndex;
+		}
+	}
+}